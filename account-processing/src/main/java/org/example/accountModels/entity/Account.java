@@ -35,5 +35,21 @@ public class Account {
     @Column(nullable = false)
     @Enumerated(EnumType.STRING)
     private AccountStatus status;
+
+    /**
+     * Отсоединенная копия для кэша: изменения управляемой сущности в транзакции ее не затрагивают
+     */
+    public Account copy() {
+        Account copy = new Account();
+        copy.setId(id);
+        copy.setClientId(clientId);
+        copy.setProductId(productId);
+        copy.setBalance(balance);
+        copy.setInterestRate(interestRate);
+        copy.setIsRecalc(isRecalc);
+        copy.setCardExist(cardExist);
+        copy.setStatus(status);
+        return copy;
+    }
 }
 
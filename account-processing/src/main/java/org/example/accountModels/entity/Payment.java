@@ -12,8 +12,10 @@ import java.time.LocalDateTime;
 @Table(name = "payments")
 @Data
 public class Payment {
+    // Sequence с pooled-оптимизатором: id выделяются блоками, поэтому Hibernate может батчить INSERT
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payments_seq")
+    @SequenceGenerator(name = "payments_seq", sequenceName = "payments_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
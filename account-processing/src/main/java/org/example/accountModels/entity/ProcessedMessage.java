@@ -0,0 +1,33 @@
+package org.example.accountModels.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "processed_messages")
+@Data
+public class ProcessedMessage {
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+
+    @Embeddable
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        @Column(name = "consumer", nullable = false)
+        private String consumer;
+
+        @Column(name = "message_id", nullable = false)
+        private UUID messageId;
+    }
+}
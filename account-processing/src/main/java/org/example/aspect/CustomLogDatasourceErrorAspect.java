@@ -6,13 +6,13 @@ import org.example.aspects.starter.annotation.LogDatasourceError;
 import org.example.aspects.starter.aspect.LogDatasourceErrorAspect;
 import org.example.aspects.starter.config.AspectsProperties;
 import org.example.aspects.starter.dto.ErrorLogMessage;
+import org.example.aspects.starter.shipper.KafkaLogShipper;
 import org.example.aspect.entity.ErrorLogEntity;
 import org.example.repository.ErrorLogRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -26,12 +26,12 @@ public class CustomLogDatasourceErrorAspect extends LogDatasourceErrorAspect {
     private final ObjectMapper objectMapper;
 
     public CustomLogDatasourceErrorAspect(AspectsProperties aspectsProperties,
-                                          KafkaTemplate<String, Object> kafkaTemplate,
+                                          KafkaLogShipper logShipper,
                                           ObjectMapper objectMapper,
                                           ErrorLogRepository errorLogRepository,
                                           @Value("${spring.application.name:unknown-service}") String serviceName) {  // ДОБАВИТЬ serviceName
         // Передаем serviceName в родительский конструктор
-        super(aspectsProperties.getDatasource(), kafkaTemplate, objectMapper, serviceName);
+        super(aspectsProperties.getDatasource(), logShipper, objectMapper, serviceName);
         this.errorLogRepository = errorLogRepository;
         this.objectMapper = objectMapper;
     }
@@ -39,6 +39,7 @@ public class CustomLogDatasourceErrorAspect extends LogDatasourceErrorAspect {
     public void init() {
         log.info("=== CUSTOM LOG DATASOURCE ERROR ASPECT INITIALIZED ===");
     }
+    // Вызывается из потока KafkaLogShipper, только когда Kafka не подтвердила доставку
     @Override
     protected void handleDatabaseFallback(ErrorLogMessage errorMessage, LogDatasourceError.LogLevel level, String kafkaError) {
         try {
@@ -1,20 +1,27 @@
 package org.example.config;
 
+import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.example.dto.CardCreateDto;
+import org.example.service.CardCreationResultPublisher;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 @Configuration
 public class KafkaConsumerConfig {
@@ -24,6 +31,39 @@ public class KafkaConsumerConfig {
 
     @Value("${spring.kafka.consumer.group-id:account-service-group}")
     private String groupId;
+
+    // Единственное место, где задается число партиций client_transactions / client_payments:
+    // из него же берется concurrency листенеров (по consumer'у на партицию)
+    @Value("${app.kafka.partitions:6}")
+    private int partitions;
+
+    @Value("${app.kafka.transactions.max-poll-records:500}")
+    private int transactionsMaxPollRecords;
+
+    @Value("${app.kafka.transactions.retry-interval-ms:1000}")
+    private long transactionsRetryIntervalMs;
+
+    @Value("${app.kafka.transactions.retry-attempts:3}")
+    private long transactionsRetryAttempts;
+
+    @Value("${app.kafka.cards.retry-interval-ms:1000}")
+    private long cardsRetryIntervalMs;
+
+    @Value("${app.kafka.cards.retry-attempts:3}")
+    private long cardsRetryAttempts;
+
+    // Топики с ключом по счету объявляет их consumer: KafkaAdmin создает их или увеличивает
+    // число партиций до app.kafka.partitions при старте account-processing
+    @Bean
+    public NewTopic clientTransactionsTopic() {
+        return TopicBuilder.name("client_transactions").partitions(partitions).build();
+    }
+
+    @Bean
+    public NewTopic clientPaymentsTopic() {
+        return TopicBuilder.name("client_payments").partitions(partitions).build();
+    }
+
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
@@ -75,4 +115,42 @@ public class KafkaConsumerConfig {
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
         return factory;
     }
+
+    // Фабрика для client_cards: упавшее сообщение повторяется, и только после исчерпания попыток
+    // инициатору публикуется окончательный FAILED (промежуточные сбои результата не дают)
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> cardCreationListenerContainerFactory(
+            CardCreationResultPublisher resultPublisher) {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(false);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.setCommonErrorHandler(new DefaultErrorHandler((record, exception) -> {
+            if (record.value() instanceof CardCreateDto cardMessage) {
+                resultPublisher.publishFailure(cardMessage, exception);
+            }
+        }, new FixedBackOff(cardsRetryIntervalMs, cardsRetryAttempts)));
+        return factory;
+    }
+
+    // Batch-фабрика для client_transactions: весь poll отдается листенеру одним списком,
+    // оффсеты коммитятся вручную только после фиксации всех групп в БД.
+    // При BatchListenerFailedException оффсеты до упавшей записи фиксируются, остаток poll
+    // доставляется повторно; после исчерпания попыток упавшая запись пропускается с логом
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> transactionBatchListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        Properties consumerOverrides = new Properties();
+        consumerOverrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(transactionsMaxPollRecords));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerOverrides);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(
+                new FixedBackOff(transactionsRetryIntervalMs, transactionsRetryAttempts)));
+        return factory;
+    }
 }
\ No newline at end of file
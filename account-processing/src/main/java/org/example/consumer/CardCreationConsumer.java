@@ -3,11 +3,15 @@ package org.example.consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.accountModels.entity.Account;
+import org.example.accountModels.entity.Card;
 import org.example.accountModels.enums.AccountStatus;
 import org.example.aspects.starter.annotation.LogDatasourceError;
 import org.example.dto.CardCreateDto;
+import org.example.dto.CardCreationResultDto;
+import org.example.service.CardCreationResultPublisher;
 import org.example.service.CardService;
 import org.example.repository.AccountRepository;
+import org.example.repository.CardRepository;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -22,8 +26,12 @@ public class CardCreationConsumer {
 
     private final CardService cardService;
     private final AccountRepository accountRepository;
+    private final CardRepository cardRepository;
+    private final CardCreationResultPublisher resultPublisher;
 
-    @KafkaListener(topics = "client_cards")
+    // Технические ошибки (БД, блокировки) пробрасываются без публикации результата и повторяются
+    // обработчиком ошибок фабрики; FAILED он публикует только после исчерпания попыток
+    @KafkaListener(topics = "client_cards", containerFactory = "cardCreationListenerContainerFactory")
     @LogDatasourceError(level = LogDatasourceError.LogLevel.ERROR)
     public void consumeCardCreationMessage(@Payload CardCreateDto cardMessage,
                                            Acknowledgment acknowledgment) {
@@ -33,22 +41,37 @@ public class CardCreationConsumer {
                 cardMessage.getCardId() == null ||
                 cardMessage.getPaymentSystem() == null) {
             log.error("Invalid card creation message: missing required fields");
+            resultPublisher.publish(cardMessage, CardCreationResultDto.STATUS_REJECTED, "Missing required fields");
             acknowledgment.acknowledge();
             return;
         }
 
-        if (!isAccountActive(cardMessage.getAccountId())) {
-            log.error("Cannot create card for account ID: {}. Account is not active or not found",
-                    cardMessage.getAccountId());
+        // Повтор запроса, карта по которому уже создана (например, commit прошел, а ack - нет)
+        Optional<Card> existingCard = cardRepository.findByCardId(cardMessage.getCardId());
+        if (existingCard.isPresent()) {
+            boolean sameAccount = existingCard.get().getAccount().getId().equals(cardMessage.getAccountId());
+            log.warn("Card {} already exists (same account: {})", cardMessage.getCardId(), sameAccount);
+            resultPublisher.publish(cardMessage,
+                    sameAccount ? CardCreationResultDto.STATUS_CREATED : CardCreationResultDto.STATUS_REJECTED,
+                    sameAccount ? "Card created" : "Card ID is already in use");
             acknowledgment.acknowledge();
             return;
         }
 
-        // Создаем карту через сервис - исключение пробрасывается к аспекту
+        Optional<String> rejection = accountRejection(cardMessage.getAccountId());
+        if (rejection.isPresent()) {
+            log.error("Cannot create card for account ID: {}. {}", cardMessage.getAccountId(), rejection.get());
+            resultPublisher.publish(cardMessage, CardCreationResultDto.STATUS_REJECTED, rejection.get());
+            acknowledgment.acknowledge();
+            return;
+        }
+
+        // Создаем карту через сервис - исключение пробрасывается к аспекту и обработчику ошибок
         cardService.createCard(cardMessage);
 
         log.info("Card created successfully from Kafka message for account ID: {}",
                 cardMessage.getAccountId());
+        resultPublisher.publish(cardMessage, CardCreationResultDto.STATUS_CREATED, "Card created");
 
         // Подтверждаем обработку сообщения
         acknowledgment.acknowledge();
@@ -56,36 +79,19 @@ public class CardCreationConsumer {
     }
 
     /**
-     * Проверяет, что аккаунт активен и может иметь карты
-     */
-    /**
-     * Проверяет, что аккаунт активен и может иметь карты
+     * Причина, по которой карту для счета создать нельзя (повтор не поможет), или пусто
      */
-    private boolean isAccountActive(Long accountId) {
-        try {
-            Optional<Account> accountOpt = accountRepository.findById(accountId);
-
-            if (accountOpt.isEmpty()) {
-                log.error("Account not found with ID: {}", accountId);
-                // БРОСАЕМ ИСКЛЮЧЕНИЕ ВМЕСТО return false
-                throw new RuntimeException("Account not found with ID: " + accountId);
-            }
-
-            Account account = accountOpt.get();
-            boolean isActive = account.getStatus() == AccountStatus.ACTIVE;
-
-            if (!isActive) {
-                log.warn("Account ID: {} has status: {}. Card creation not allowed.",
-                        accountId, account.getStatus());
-                throw new RuntimeException("Account is not active. ID: " + accountId);
-            }
-
-            return true;
+    private Optional<String> accountRejection(Long accountId) {
+        Optional<Account> accountOpt = accountRepository.findById(accountId);
+        if (accountOpt.isEmpty()) {
+            return Optional.of("Account not found");
+        }
 
-        } catch (Exception e) {
-            log.error("Error checking account status for account ID: {}", accountId, e);
-            // ПРОБРАСЫВАЕМ ИСКЛЮЧЕНИЕ ДАЛЬШЕ
-            throw new RuntimeException("Error checking account status", e);
+        Account account = accountOpt.get();
+        if (account.getStatus() != AccountStatus.ACTIVE) {
+            log.warn("Account ID: {} has status: {}. Card creation not allowed.", accountId, account.getStatus());
+            return Optional.of("Account is not active");
         }
+        return Optional.empty();
     }
-}
\ No newline at end of file
+}
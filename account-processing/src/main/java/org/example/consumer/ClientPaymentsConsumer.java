@@ -3,6 +3,7 @@ package org.example.consumer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dto.PaymentMessageDto;
+import org.example.service.AccountExecutionEngine;
 import org.example.service.PaymentProcessingService;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.messaging.handler.annotation.Payload;
@@ -14,13 +15,16 @@ import org.springframework.stereotype.Component;
 public class ClientPaymentsConsumer {
 
     private final PaymentProcessingService paymentProcessingService;
+    private final AccountExecutionEngine executionEngine;
 
-    @KafkaListener(topics = "client_payments")
+    // Ключ сообщений - accountId: порядок платежей счета сохраняется внутри партиции
+    @KafkaListener(topics = "client_payments", concurrency = "${app.kafka.partitions:6}")
     public void consume(@Payload PaymentMessageDto message) {
         try {
             log.info("Received payment: {} for account: {}", message.getMessageId(), message.getAccountId());
 
-            paymentProcessingService.processPayment(message);
+            // Изменение баланса выполняется в полосе счета - последовательно с транзакциями по нему
+            executionEngine.run(message.getAccountId(), () -> paymentProcessingService.processPayment(message));
 
             log.info("Payment processed successfully: {}", message.getMessageId());
         } catch (Exception e) {
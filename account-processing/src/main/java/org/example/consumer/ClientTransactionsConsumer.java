@@ -4,14 +4,23 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.dto.TransactionMessageDto;
 import org.example.dto.TransactionProcessingResultDto;
+import org.example.service.AccountExecutionEngine;
 import org.example.service.TransactionProcessingService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
-import java.util.UUID;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 @Component
@@ -19,16 +28,115 @@ import java.util.UUID;
 public class ClientTransactionsConsumer {
 
     private final TransactionProcessingService processingService;
+    private final AccountExecutionEngine executionEngine;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
 
-    // ИСПРАВЛЕННЫЙ МЕТОД - используем String для ключа
-    @KafkaListener(topics = "client_transactions")
-    public void consume(@Payload TransactionMessageDto message,
-                        @Header(KafkaHeaders.RECEIVED_KEY) String key) { // Изменено на String
-        log.info("Received transaction with key: {}, messageId: {}", key, message.getMessageId());
+    @Value("${kafka.topics.client-transaction-results:client_transaction_results}")
+    private String transactionResultsTopic;
 
-        TransactionProcessingResultDto result = processingService.processTransaction(message);
+    // Batch-режим: группируем poll по счету, каждую группу применяем в одной транзакции
+    // в полосе своего счета (разные счета - параллельно)
+    // Ключ сообщений - accountId, поэтому все сообщения счета приходят в одну партицию
+    // и обрабатываются одним consumer'ом по порядку; consumer'ов столько же, сколько партиций
+    @KafkaListener(topics = "client_transactions", containerFactory = "transactionBatchListenerContainerFactory",
+            concurrency = "${app.kafka.partitions:6}")
+    public void consume(@Payload List<TransactionMessageDto> messages,
+                        Acknowledgment acknowledgment) {
+        log.info("Received batch of {} transactions", messages.size());
 
-        log.info("Transaction processed: {}, Status: {}",
-                result.getMessageId(), result.getStatus());
+        Map<String, List<TransactionMessageDto>> byAccount = groupByAccount(messages);
+        Map<String, Integer> firstIndexByAccount = firstIndexByAccount(messages);
+
+        Map<String, CompletableFuture<Void>> groups = new LinkedHashMap<>();
+        for (Map.Entry<String, List<TransactionMessageDto>> group : byAccount.entrySet()) {
+            groups.put(group.getKey(), executionEngine
+                    .submit(group.getKey(), () -> processingService.processAccountBatch(group.getValue()))
+                    .thenAccept(results -> {
+                        logGroupResults(group.getKey(), results);
+                        publishResults(results);
+                    }));
+        }
+
+        // Ждем все группы, включая упавшие: зафиксированные группы не должны откатываться из-за соседних
+        CompletableFuture.allOf(groups.values().toArray(new CompletableFuture[0]))
+                .handle((ignored, exception) -> null)
+                .join();
+
+        // Упавшая группа откатилась целиком. Сообщаем контейнеру индекс первой ее записи в poll:
+        // оффсеты до него фиксируются, poll доставляется повторно начиная с этой записи.
+        // Зафиксированные записи после индекса будут пропущены реестром обработанных сообщений.
+        int failedIndex = -1;
+        Throwable failure = null;
+        for (Map.Entry<String, CompletableFuture<Void>> group : groups.entrySet()) {
+            if (!group.getValue().isCompletedExceptionally()) {
+                continue;
+            }
+            int index = firstIndexByAccount.get(group.getKey());
+            if (failedIndex < 0 || index < failedIndex) {
+                failedIndex = index;
+                failure = causeOf(group.getValue());
+            }
+            log.error("Transactions of account {} rolled back", group.getKey(), causeOf(group.getValue()));
+        }
+        if (failedIndex >= 0) {
+            throw new BatchListenerFailedException("Account group failed", failure, failedIndex);
+        }
+
+        acknowledgment.acknowledge();
+        log.debug("Batch of {} transactions acknowledged", messages.size());
+    }
+
+    private Throwable causeOf(CompletableFuture<Void> future) {
+        try {
+            future.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        }
+    }
+
+    private void logGroupResults(String accountId, List<TransactionProcessingResultDto> results) {
+        log.info("Account {}: {} transactions applied", accountId, results.size());
+        results.forEach(result -> log.debug("Transaction processed: {}, Status: {}",
+                result.getMessageId(), result.getStatus()));
+    }
+
+    /**
+     * Публикует результаты группы в client_transaction_results (ключ - messageId) после commit группы.
+     * При повторной доставке poll результаты будут отправлены еще раз - получатель сопоставляет их по messageId.
+     */
+    private void publishResults(List<TransactionProcessingResultDto> results) {
+        for (TransactionProcessingResultDto result : results) {
+            String key = result.getMessageId() != null ? result.getMessageId().toString() : null;
+            kafkaTemplate.send(transactionResultsTopic, key, result)
+                    .whenComplete((sendResult, exception) -> {
+                        if (exception != null) {
+                            log.warn("Failed to publish transaction result {}: {}",
+                                    result.getMessageId(), exception.getMessage());
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Индекс первого сообщения каждого счета в poll
+     */
+    private Map<String, Integer> firstIndexByAccount(List<TransactionMessageDto> messages) {
+        Map<String, Integer> firstIndex = new HashMap<>();
+        for (int i = 0; i < messages.size(); i++) {
+            firstIndex.putIfAbsent(messages.get(i).getAccountId(), i);
+        }
+        return firstIndex;
+    }
+
+    /**
+     * Группирует сообщения по accountId, сохраняя порядок внутри группы таким, как он пришел из партиции
+     */
+    private Map<String, List<TransactionMessageDto>> groupByAccount(List<TransactionMessageDto> messages) {
+        Map<String, List<TransactionMessageDto>> byAccount = new LinkedHashMap<>();
+        for (TransactionMessageDto message : messages) {
+            byAccount.computeIfAbsent(message.getAccountId(), k -> new ArrayList<>()).add(message);
+        }
+        return byAccount;
     }
-}
\ No newline at end of file
+}
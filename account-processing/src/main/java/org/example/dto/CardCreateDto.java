@@ -4,7 +4,9 @@ import lombok.Data;
 
 @Data
 public class CardCreateDto {
+    // Идентификатор запроса из client-processing; null у сообщений старого формата
+    private String requestId;
     private Long accountId;
     private String cardId;
     private String paymentSystem;
-}
\ No newline at end of file
+}
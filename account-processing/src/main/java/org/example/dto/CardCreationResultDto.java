@@ -0,0 +1,20 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CardCreationResultDto {
+    public static final String STATUS_CREATED = "CREATED";
+    public static final String STATUS_REJECTED = "REJECTED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private String requestId;
+    private Long accountId;
+    private String cardId;
+    private String status;
+    private String message;
+}
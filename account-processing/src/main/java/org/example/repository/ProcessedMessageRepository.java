@@ -0,0 +1,27 @@
+package org.example.repository;
+
+import org.example.accountModels.entity.ProcessedMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface ProcessedMessageRepository extends JpaRepository<ProcessedMessage, ProcessedMessage.Key> {
+
+    // 1 - сообщение закреплено за текущей транзакцией, 0 - уже обработано ранее;
+    // конкурентная вставка того же ключа ждет commit/rollback первой транзакции
+    @Modifying
+    @Query(value = "INSERT INTO processed_messages (consumer, message_id, processed_at) " +
+            "VALUES (:consumer, :messageId, now()) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int claim(@Param("consumer") String consumer, @Param("messageId") UUID messageId);
+
+    @Modifying
+    @Query("DELETE FROM ProcessedMessage pm WHERE pm.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -21,4 +22,27 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
 
     @Query("SELECT t FROM Transaction t WHERE t.card.cardId = :cardId AND t.timestamp >= :startTime AND t.status = 'COMPLETED'")
     List<Transaction> findRecentSuccessfulTransactions(@Param("cardId") String cardId, @Param("startTime") LocalDateTime startTime);
+
+    // Агрегат по успешным транзакциям карты за окно: сумма и количество считаются в БД
+    // (totalAmount = null, если транзакций в окне нет)
+    @Query("SELECT SUM(t.amount) AS totalAmount, COUNT(t) AS transactionCount " +
+            "FROM Transaction t WHERE t.card.cardId = :cardId AND t.timestamp >= :startTime AND t.status = 'COMPLETED'")
+    CompletedAmountAggregate aggregateCompletedSince(@Param("cardId") String cardId, @Param("startTime") LocalDateTime startTime);
+
+    // Легковесная выборка для прогрева счетчиков антифрода: без гидрации сущностей Account/Card
+    @Query("SELECT t.card.cardId AS cardId, t.timestamp AS timestamp, t.amount AS amount, t.status AS status " +
+            "FROM Transaction t WHERE t.card IS NOT NULL AND t.timestamp >= :startTime")
+    List<CardActivity> findCardActivitySince(@Param("startTime") LocalDateTime startTime);
+
+    interface CompletedAmountAggregate {
+        BigDecimal getTotalAmount();
+        Long getTransactionCount();
+    }
+
+    interface CardActivity {
+        String getCardId();
+        LocalDateTime getTimestamp();
+        BigDecimal getAmount();
+        TransactionStatus getStatus();
+    }
 }
\ No newline at end of file
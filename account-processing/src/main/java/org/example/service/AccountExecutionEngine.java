@@ -0,0 +1,103 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Однопоточные "полосы" исполнения для изменений баланса.
+ * Каждый accountId всегда попадает в одну и ту же полосу, поэтому read-modify-write
+ * по одному счету выполняются строго последовательно, а разные счета - параллельно.
+ */
+@Slf4j
+@Component
+public class AccountExecutionEngine {
+
+    private final ExecutorService[] lanes;
+
+    public AccountExecutionEngine(@Value("${app.account-engine.lanes:0}") int configuredLanes) {
+        int laneCount = configuredLanes > 0 ? configuredLanes : Runtime.getRuntime().availableProcessors();
+        this.lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            this.lanes[i] = Executors.newSingleThreadExecutor(laneThreadFactory(i));
+        }
+        log.info("AccountExecutionEngine started with {} lanes", laneCount);
+    }
+
+    /**
+     * Ставит задачу в полосу счета и возвращает future с ее результатом
+     */
+    public <T> CompletableFuture<T> submit(String accountId, Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, lanes[laneIndex(accountId)]);
+    }
+
+    /**
+     * Выполняет задачу в полосе счета и дожидается результата.
+     * RuntimeException задачи пробрасывается вызывающему как есть.
+     */
+    public <T> T execute(String accountId, Supplier<T> task) {
+        try {
+            return submit(accountId, task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    public void run(String accountId, Runnable task) {
+        execute(accountId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    int laneIndex(String accountId) {
+        int hash = accountId == null ? 0 : accountId.hashCode();
+        // Перемешиваем старшие биты, чтобы последовательные id не скапливались в соседних полосах
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, lanes.length);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            try {
+                if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                    lane.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                lane.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        log.info("AccountExecutionEngine stopped");
+    }
+
+    private static ThreadFactory laneThreadFactory(int laneIndex) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "account-lane-" + laneIndex + "-" + counter.incrementAndGet());
+            thread.setDaemon(false);
+            return thread;
+        };
+    }
+}
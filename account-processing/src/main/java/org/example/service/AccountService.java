@@ -5,6 +5,7 @@ import org.example.accountModels.entity.Account;
 import org.example.accountModels.enums.AccountStatus;
 //import org.example.aspect.annotation.Cached;
 import org.example.aspects.starter.annotation.Cached;
+import org.example.aspects.starter.annotation.CachedEvict;
 import org.example.repository.AccountRepository;
 import org.springframework.stereotype.Service;
 
@@ -18,12 +19,28 @@ public class AccountService {
 
     private final AccountRepository accountRepository;
 
-    @Cached(cacheName = "accounts-by-id", ttl = 900000)
+    /**
+     * Только для чтения: возвращается отсоединенная копия из кэша, ее изменения не сохраняются
+     * и не видны другим. Для изменения счета используйте {@link #getForUpdate(String)}.
+     */
+    @Cached(cacheName = "accounts-by-id", ttl = 900000, coalesce = true)
     public Account findById(String accountId) {
+        return getForUpdate(accountId).copy();
+    }
+
+    /**
+     * Управляемая сущность в обход кэша - для изменения баланса и статуса в транзакции
+     */
+    public Account getForUpdate(String accountId) {
         return accountRepository.findById(Long.valueOf(accountId))
                 .orElseThrow(() -> new RuntimeException("Account not found with id: " + accountId));
     }
 
+    // Сохраненная сущность в кэш не кладется (ее изменяют дальше в той же транзакции) -
+    // запись удаляется после commit и будет загружена заново
+    @CachedEvict(cacheNames = {"accounts-by-id", "account-active-status"}, keyFromResult = true)
+    @CachedEvict(cacheNames = "accounts-by-client", resultProperty = "clientId")
+    @CachedEvict(cacheNames = "accounts-by-status", allEntries = true)
     public Account save(Account account) {
         return accountRepository.save(account);
     }
@@ -38,6 +55,8 @@ public class AccountService {
         return accountRepository.findByStatus(status);
     }
 
+    @CachedEvict(cacheNames = "accounts-by-id", keyParam = 0)
+    @CachedEvict(cacheNames = {"accounts-by-client", "accounts-by-status"}, allEntries = true)
     public void updateBalance(Long accountId, BigDecimal amount, boolean isCredit) {
         Account account = accountRepository.findById(accountId)
                 .orElseThrow(() -> new RuntimeException("Account not found"));
@@ -54,6 +73,8 @@ public class AccountService {
         accountRepository.save(account);
     }
 
+    @CachedEvict(cacheNames = {"accounts-by-id", "account-active-status"})
+    @CachedEvict(cacheNames = {"accounts-by-client", "accounts-by-status"}, allEntries = true)
     public void blockAccount(Long accountId) {
         Account account = accountRepository.findById(accountId)
                 .orElseThrow(() -> new RuntimeException("Account not found"));
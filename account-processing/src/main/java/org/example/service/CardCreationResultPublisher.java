@@ -0,0 +1,60 @@
+package org.example.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.CardCreateDto;
+import org.example.dto.CardCreationResultDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Итог создания карты в client_card_results для асинхронного API client-processing.
+ * Публикуется только окончательный результат: CREATED, REJECTED (запрос невыполним)
+ * или FAILED (технические ошибки не прошли после всех повторов).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardCreationResultPublisher {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Value("${kafka.topics.client-card-results:client_card_results}")
+    private String cardResultsTopic;
+
+    /**
+     * Сообщения без requestId (старый формат) результата не ждут
+     */
+    public void publish(CardCreateDto cardMessage, String status, String message) {
+        if (cardMessage.getRequestId() == null) {
+            return;
+        }
+        CardCreationResultDto result = new CardCreationResultDto(cardMessage.getRequestId(),
+                cardMessage.getAccountId(), cardMessage.getCardId(), status, message);
+        kafkaTemplate.send(cardResultsTopic, cardMessage.getRequestId(), result)
+                .whenComplete((sendResult, exception) -> {
+                    if (exception != null) {
+                        log.warn("Failed to publish card creation result for request {}: {}",
+                                cardMessage.getRequestId(), exception.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Вызывается обработчиком ошибок листенера после исчерпания повторов
+     */
+    public void publishFailure(CardCreateDto cardMessage, Throwable exception) {
+        log.error("Card creation for request {} failed after retries: {}",
+                cardMessage.getRequestId(), rootMessage(exception));
+        publish(cardMessage, CardCreationResultDto.STATUS_FAILED, "Card creation failed: " + rootMessage(exception));
+    }
+
+    private String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
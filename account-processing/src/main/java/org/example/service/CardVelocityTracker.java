@@ -0,0 +1,322 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.accountModels.enums.TransactionStatus;
+import org.example.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Скользящее окно активности по картам для антифрода.
+ * Для каждой карты хранится кольцевой буфер временных корзин (количество транзакций и сумма успешных),
+ * поэтому проверка карты не обращается к БД и стоит O(1) независимо от истории карты.
+ * При старте окно прогревается из таблицы transactions.
+ * Внутри транзакции БД изменения окна применяются к общему окну только после ее commit,
+ * чтобы откаченные и повторно доставленные транзакции не учитывались дважды. До commit они
+ * видны проверкам этой же транзакции (транзакция группы счета обрабатывает несколько сообщений
+ * одной карты подряд) и отбрасываются при rollback.
+ */
+@Slf4j
+@Component
+public class CardVelocityTracker {
+
+    private final TransactionRepository transactionRepository;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final int windowMinutes;
+
+    private final Map<String, CardWindow> windows = new ConcurrentHashMap<>();
+    private ScheduledExecutorService cleanupScheduler;
+
+    public CardVelocityTracker(TransactionRepository transactionRepository,
+                               @Value("${app.fraud.time-period-minutes:5}") int windowMinutes,
+                               @Value("${app.fraud.bucket-seconds:10}") int bucketSeconds) {
+        this.transactionRepository = transactionRepository;
+        this.windowMinutes = windowMinutes;
+        this.bucketMillis = TimeUnit.SECONDS.toMillis(bucketSeconds);
+        this.bucketCount = (int) Math.max(1, TimeUnit.MINUTES.toMillis(windowMinutes) / bucketMillis);
+    }
+
+    @PostConstruct
+    public void init() {
+        warmUp();
+
+        // Периодически убираем карты, по которым в окне не осталось активности
+        cleanupScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "card-velocity-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleanupScheduler.scheduleAtFixedRate(this::removeIdleCards, windowMinutes, windowMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (cleanupScheduler != null) {
+            cleanupScheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Учитывает попытку транзакции по карте (в счетчик попадают транзакции в любом статусе)
+     */
+    public void recordAttempt(String cardId, LocalDateTime timestamp) {
+        PendingActivity pending = currentPending();
+        if (pending == null) {
+            applyAttempt(cardId, timestamp);
+            return;
+        }
+        pending.add(cardId, new Snapshot(1, BigDecimal.ZERO), () -> applyAttempt(cardId, timestamp));
+    }
+
+    /**
+     * Учитывает сумму успешно завершенной транзакции
+     */
+    public void recordCompleted(String cardId, LocalDateTime timestamp, BigDecimal amount) {
+        PendingActivity pending = currentPending();
+        if (pending == null) {
+            applyCompleted(cardId, timestamp, amount);
+            return;
+        }
+        BigDecimal pendingAmount = amount != null ? amount : BigDecimal.ZERO;
+        pending.add(cardId, new Snapshot(0, pendingAmount), () -> applyCompleted(cardId, timestamp, amount));
+    }
+
+    private void applyAttempt(String cardId, LocalDateTime timestamp) {
+        long bucket = toBucket(timestamp);
+        windows.compute(cardId, (id, window) -> {
+            CardWindow target = window != null ? window : new CardWindow(bucketCount);
+            target.addAttempt(bucket);
+            return target;
+        });
+    }
+
+    private void applyCompleted(String cardId, LocalDateTime timestamp, BigDecimal amount) {
+        long bucket = toBucket(timestamp);
+        windows.compute(cardId, (id, window) -> {
+            CardWindow target = window != null ? window : new CardWindow(bucketCount);
+            target.addCompletedAmount(bucket, amount);
+            return target;
+        });
+    }
+
+    /**
+     * Незафиксированные изменения текущей транзакции БД или null вне транзакции.
+     * Хранятся в ее synchronization: при REQUIRES_NEW внешняя транзакция приостанавливается
+     * вместе со своими изменениями
+     */
+    private PendingActivity currentPending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        PendingActivity pending = findPending();
+        if (pending == null) {
+            // При rollback synchronization отбрасывается вместе с изменениями
+            pending = new PendingActivity();
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending;
+    }
+
+    /**
+     * Текущие значения окна по карте, включая незафиксированные изменения текущей транзакции
+     */
+    public Snapshot snapshot(String cardId) {
+        CardWindow window = windows.get(cardId);
+        Snapshot committed = window != null ? window.snapshot(currentBucket()) : Snapshot.EMPTY;
+
+        PendingActivity pending = TransactionSynchronizationManager.isSynchronizationActive() ? findPending() : null;
+        return pending != null ? committed.plus(pending.of(cardId)) : committed;
+    }
+
+    private PendingActivity findPending() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingActivity pending && pending.owner() == this) {
+                return pending;
+            }
+        }
+        return null;
+    }
+
+    public int getWindowMinutes() {
+        return windowMinutes;
+    }
+
+    private void warmUp() {
+        LocalDateTime startTime = LocalDateTime.now().minusMinutes(windowMinutes);
+        List<TransactionRepository.CardActivity> activity = transactionRepository.findCardActivitySince(startTime);
+
+        for (TransactionRepository.CardActivity item : activity) {
+            applyAttempt(item.getCardId(), item.getTimestamp());
+            if (item.getStatus() == TransactionStatus.COMPLETED) {
+                applyCompleted(item.getCardId(), item.getTimestamp(), item.getAmount());
+            }
+        }
+
+        log.info("Card velocity windows warmed up: {} transactions, {} cards, window {} min",
+                activity.size(), windows.size(), windowMinutes);
+    }
+
+    private void removeIdleCards() {
+        long now = currentBucket();
+        int before = windows.size();
+        windows.keySet().forEach(cardId ->
+                windows.computeIfPresent(cardId, (id, window) -> window.isIdle(now) ? null : window));
+        log.debug("Removed {} idle card velocity windows", before - windows.size());
+    }
+
+    private long currentBucket() {
+        return System.currentTimeMillis() / bucketMillis;
+    }
+
+    private long toBucket(LocalDateTime timestamp) {
+        if (timestamp == null) {
+            return currentBucket();
+        }
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / bucketMillis;
+    }
+
+    public record Snapshot(long transactionCount, BigDecimal completedAmount) {
+        static final Snapshot EMPTY = new Snapshot(0, BigDecimal.ZERO);
+
+        Snapshot plus(Snapshot other) {
+            return new Snapshot(transactionCount + other.transactionCount, completedAmount.add(other.completedAmount));
+        }
+    }
+
+    /**
+     * Изменения окна, сделанные транзакцией БД: итоги по картам для snapshot() этой транзакции
+     * и отложенные обновления общего окна, которые применяются только после commit
+     */
+    private final class PendingActivity implements TransactionSynchronization {
+        private final Map<String, Snapshot> totals = new HashMap<>();
+        private final List<Runnable> updates = new ArrayList<>();
+
+        CardVelocityTracker owner() {
+            return CardVelocityTracker.this;
+        }
+
+        void add(String cardId, Snapshot delta, Runnable update) {
+            totals.merge(cardId, delta, Snapshot::plus);
+            updates.add(update);
+        }
+
+        Snapshot of(String cardId) {
+            return totals.getOrDefault(cardId, Snapshot.EMPTY);
+        }
+
+        @Override
+        public void afterCommit() {
+            updates.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * Кольцевой буфер корзин одной карты. Слот i хранит данные корзины bucketIds[i];
+     * итоговые значения окна поддерживаются инкрементально при сдвиге окна.
+     */
+    private static final class CardWindow {
+        private final long[] bucketIds;
+        private final long[] counts;
+        private final BigDecimal[] amounts;
+        private long lastBucket = Long.MIN_VALUE;
+        private long totalCount;
+        private BigDecimal totalAmount = BigDecimal.ZERO;
+
+        CardWindow(int size) {
+            this.bucketIds = new long[size];
+            this.counts = new long[size];
+            this.amounts = new BigDecimal[size];
+        }
+
+        synchronized void addAttempt(long bucket) {
+            int slot = slotFor(bucket);
+            if (slot >= 0) {
+                counts[slot]++;
+                totalCount++;
+            }
+        }
+
+        synchronized void addCompletedAmount(long bucket, BigDecimal amount) {
+            int slot = slotFor(bucket);
+            if (slot >= 0 && amount != null) {
+                amounts[slot] = amounts[slot] == null ? amount : amounts[slot].add(amount);
+                totalAmount = totalAmount.add(amount);
+            }
+        }
+
+        synchronized Snapshot snapshot(long nowBucket) {
+            advance(nowBucket);
+            return new Snapshot(totalCount, totalAmount);
+        }
+
+        synchronized boolean isIdle(long nowBucket) {
+            advance(nowBucket);
+            return totalCount == 0 && totalAmount.signum() == 0;
+        }
+
+        /**
+         * Возвращает слот для корзины или -1, если корзина уже выпала из окна
+         */
+        private int slotFor(long bucket) {
+            if (bucket > lastBucket) {
+                advance(bucket);
+            }
+            if (bucket <= lastBucket - bucketIds.length) {
+                return -1;
+            }
+            int slot = (int) Math.floorMod(bucket, (long) bucketIds.length);
+            if (bucketIds[slot] != bucket) {
+                clearSlot(slot);
+                bucketIds[slot] = bucket;
+            }
+            return slot;
+        }
+
+        /**
+         * Сдвигает окно до корзины now, вычитая из итогов выпавшие корзины.
+         * Количество шагов ограничено размером буфера.
+         */
+        private void advance(long nowBucket) {
+            if (nowBucket <= lastBucket) {
+                return;
+            }
+            if (lastBucket == Long.MIN_VALUE || nowBucket - lastBucket >= bucketIds.length) {
+                for (int slot = 0; slot < bucketIds.length; slot++) {
+                    clearSlot(slot);
+                }
+            } else {
+                for (long bucket = lastBucket + 1; bucket <= nowBucket; bucket++) {
+                    clearSlot((int) Math.floorMod(bucket, (long) bucketIds.length));
+                }
+            }
+            lastBucket = nowBucket;
+        }
+
+        private void clearSlot(int slot) {
+            totalCount -= counts[slot];
+            if (amounts[slot] != null) {
+                totalAmount = totalAmount.subtract(amounts[slot]);
+            }
+            counts[slot] = 0;
+            amounts[slot] = null;
+            bucketIds[slot] = Long.MIN_VALUE;
+        }
+    }
+}
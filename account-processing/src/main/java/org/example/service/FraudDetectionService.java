@@ -2,22 +2,19 @@ package org.example.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.example.accountModels.entity.Transaction;
-import org.example.accountModels.enums.TransactionStatus;
-import org.example.service.AccountService;
-import org.example.service.CardService;
-import org.example.service.TransactionService;
+import org.example.repository.TransactionRepository;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class FraudDetectionService {
 
+    private final CardVelocityTracker velocityTracker;
     private final TransactionService transactionService;
     private final AccountService accountService;
     private final CardService cardService;
@@ -29,13 +26,18 @@ public class FraudDetectionService {
     private int timePeriodMinutes;
 
     @Value("${app.fraud.max-amount:5000000}")
-    private double maxAmount;
+    private BigDecimal maxAmount;
+
+    // Окно для проверки суммы; по умолчанию совпадает с окном по количеству транзакций
+    @Value("${app.fraud.amount-window-minutes:${app.fraud.time-period-minutes:5}}")
+    private int amountWindowMinutes;
 
     public boolean isSuspiciousActivity(String cardId) {
-        LocalDateTime startTime = LocalDateTime.now().minusMinutes(timePeriodMinutes);
+        // Окно активности карты держится в памяти - проверка не обращается к БД
+        CardVelocityTracker.Snapshot window = velocityTracker.snapshot(cardId);
 
         // Проверка количества транзакций
-        long transactionCount = transactionService.countTransactionsByCardAndTime(cardId, startTime);
+        long transactionCount = window.transactionCount();
 
         if (transactionCount >= maxTransactions) {
             log.warn("Suspicious activity detected: {} transactions in {} minutes for card {}",
@@ -43,14 +45,10 @@ public class FraudDetectionService {
             return true;
         }
 
-        // Дополнительная проверка: большие суммы
-        List<Transaction> recentTransactions = transactionService.findByCardId(cardId);
-        double totalAmount = recentTransactions.stream()
-                .filter(t -> t.getStatus() == TransactionStatus.COMPLETED)
-                .mapToDouble(t -> t.getAmount().doubleValue())
-                .sum();
+        // Дополнительная проверка: большие суммы за окно
+        BigDecimal totalAmount = completedAmountInWindow(cardId, window);
 
-        if (totalAmount > maxAmount) {
+        if (totalAmount.compareTo(maxAmount) > 0) {
             log.warn("Suspicious amount detected: {} for card {}", totalAmount, cardId);
             return true;
         }
@@ -58,6 +56,24 @@ public class FraudDetectionService {
         return false;
     }
 
+    /**
+     * Если окно суммы совпадает с окном в памяти - берем значение оттуда. Иначе считаем SUM в БД
+     * только по транзакциям окна (стоимость ограничена размером окна, а не историей карты):
+     * сумма за более длинное окно в памяти завысила бы итог для короткого окна
+     */
+    private BigDecimal completedAmountInWindow(String cardId, CardVelocityTracker.Snapshot window) {
+        if (amountWindowMinutes == velocityTracker.getWindowMinutes()) {
+            return window.completedAmount();
+        }
+
+        LocalDateTime startTime = LocalDateTime.now().minusMinutes(amountWindowMinutes);
+        TransactionRepository.CompletedAmountAggregate aggregate =
+                transactionService.aggregateCompletedByCardSince(cardId, startTime);
+        log.debug("Card {}: {} completed transactions for {} in last {} minutes",
+                cardId, aggregate.getTransactionCount(), aggregate.getTotalAmount(), amountWindowMinutes);
+        return aggregate.getTotalAmount() != null ? aggregate.getTotalAmount() : BigDecimal.ZERO;
+    }
+
     public void handleSuspiciousActivity(String cardId, String accountId) {
         try {
             // Блокируем счет
@@ -21,10 +21,17 @@ public class PaymentProcessingService {
 
     private final AccountService accountService;
     private final PaymentService paymentService;
+    private final ProcessedMessageRegistry processedMessageRegistry;
 
     @Transactional
     public void processPayment(PaymentMessageDto message) {
-        Account account = accountService.findById(message.getAccountId());
+        // Повторная доставка не должна повторно менять баланс
+        if (!processedMessageRegistry.markProcessed(ProcessedMessageRegistry.PAYMENTS, message.getMessageId())) {
+            log.info("Duplicate payment message skipped: {}", message.getMessageId());
+            return;
+        }
+
+        Account account = accountService.getForUpdate(message.getAccountId());
 
         if (Boolean.TRUE.equals(account.getIsRecalc())) {
             processCreditAccountPayment(message, account);
@@ -19,6 +19,10 @@ public class PaymentService {
         return paymentRepository.save(payment);
     }
 
+    public List<Payment> saveAll(List<Payment> payments) {
+        return paymentRepository.saveAll(payments);
+    }
+
     public List<Payment> findByAccountId(Long accountId) {
         return paymentRepository.findByAccountId(accountId);
     }
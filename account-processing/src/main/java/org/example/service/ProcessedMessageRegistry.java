@@ -0,0 +1,115 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.accountModels.entity.ProcessedMessage;
+import org.example.repository.ProcessedMessageRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Реестр обработанных сообщений для идемпотентной обработки Kafka (at-least-once -> effectively-once).
+ * Источник истины - таблица processed_messages: запись вставляется в той же транзакции, что и
+ * изменение баланса, и откатывается вместе с ним. Перед ней - ограниченный кэш недавно
+ * зафиксированных id: попадание в кэш означает гарантированный дубль без обращения к БД,
+ * промах всегда проверяется вставкой в БД.
+ */
+@Slf4j
+@Service
+public class ProcessedMessageRegistry {
+
+    public static final String TRANSACTIONS = "client_transactions";
+    public static final String PAYMENTS = "client_payments";
+
+    private final ProcessedMessageRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<ProcessedMessage.Key, Boolean> recentlyProcessed;
+    private final long retentionDays;
+
+    private ScheduledExecutorService cleaner;
+
+    public ProcessedMessageRegistry(ProcessedMessageRepository repository,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${app.idempotency.cache-size:100000}") long cacheSize,
+                                    @Value("${app.idempotency.retention-days:7}") long retentionDays) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.recentlyProcessed = Caffeine.newBuilder().maximumSize(cacheSize).build();
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Закрепляет сообщение за текущей транзакцией.
+     *
+     * @return true - сообщение нужно обработать, false - оно уже было обработано
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean markProcessed(String consumer, UUID messageId) {
+        if (messageId == null) {
+            // Без идентификатора дедупликация невозможна - обрабатываем как раньше
+            return true;
+        }
+
+        ProcessedMessage.Key key = new ProcessedMessage.Key(consumer, messageId);
+        if (recentlyProcessed.getIfPresent(key) != null) {
+            return false;
+        }
+
+        if (repository.claim(consumer, messageId) == 0) {
+            recentlyProcessed.put(key, Boolean.TRUE);
+            return false;
+        }
+
+        // В кэш - только после commit: откаченная обработка должна быть повторена
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentlyProcessed.put(key, Boolean.TRUE);
+            }
+        });
+        return true;
+    }
+
+    @PostConstruct
+    public void startCleanup() {
+        cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "processed-messages-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(this::purgeExpired, 1, 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stopCleanup() {
+        if (cleaner != null) {
+            cleaner.shutdownNow();
+        }
+    }
+
+    void purgeExpired() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+            Integer removed = transactionTemplate.execute(status -> repository.deleteProcessedBefore(cutoff));
+            if (removed != null && removed > 0) {
+                log.info("Removed {} processed message records older than {}", removed, cutoff);
+            }
+        } catch (Exception e) {
+            log.warn("Processed messages cleanup failed: {}", e.getMessage());
+        }
+    }
+}
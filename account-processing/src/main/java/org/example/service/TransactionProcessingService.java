@@ -13,11 +13,14 @@ import org.example.accountModels.enums.PaymentStatus;
 import org.example.accountModels.enums.PaymentType;
 import org.example.accountModels.enums.TransactionStatus;
 import org.example.accountModels.enums.TransactionType;
+import jakarta.persistence.PersistenceException;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -30,6 +33,8 @@ public class TransactionProcessingService {
     private final TransactionService transactionService;
     private final PaymentService paymentService;
     private final FraudDetectionService fraudDetectionService;
+    private final CardVelocityTracker velocityTracker;
+    private final ProcessedMessageRegistry processedMessageRegistry;
 
     @Value("${app.fraud.max-transactions:10}")
     private int maxTransactionsPerPeriod;
@@ -37,36 +42,62 @@ public class TransactionProcessingService {
     @Value("${app.fraud.time-period-minutes:5}")
     private int fraudTimePeriodMinutes;
 
+    /**
+     * Применяет транзакции одного счета по порядку в рамках одной транзакции БД:
+     * один flush и один commit на группу вместо отдельного commit на каждое сообщение.
+     * Уже обработанные сообщения (повторная доставка) пропускаются и результата не дают.
+     * Ошибка любого сообщения откатывает всю группу и пробрасывается вызывающему.
+     */
     @Transactional
-    public TransactionProcessingResultDto processTransaction(TransactionMessageDto message) {
-        try {
-            // a. Проверка на мошенничество
-            if (fraudDetectionService.isSuspiciousActivity(message.getCardId())) {
-                return blockAccountAndCard(message);
+    public List<TransactionProcessingResultDto> processAccountBatch(List<TransactionMessageDto> messages) {
+        List<TransactionProcessingResultDto> results = new ArrayList<>(messages.size());
+        for (TransactionMessageDto message : messages) {
+            if (!processedMessageRegistry.markProcessed(ProcessedMessageRegistry.TRANSACTIONS, message.getMessageId())) {
+                log.info("Duplicate transaction message skipped: {}", message.getMessageId());
+                continue;
             }
+            results.add(processTransaction(message));
+        }
+        return results;
+    }
 
-            // Поиск счета и карты
-            Account account = accountService.findById(message.getAccountId());
-            Card card = cardService.findByCardId(message.getCardId());
+    /**
+     * Вызывается только из processAccountBatch и выполняется в транзакции группы.
+     * Ненайденные счет или карта дают FAILED-результат: до этого момента ничего не изменено.
+     * Любая ошибка после начала изменений пробрасывается - транзакция группы откатывается целиком,
+     * иначе частично примененное сообщение было бы зафиксировано вместе с остальными.
+     */
+    private TransactionProcessingResultDto processTransaction(TransactionMessageDto message) {
+        // a. Проверка на мошенничество
+        if (fraudDetectionService.isSuspiciousActivity(message.getCardId())) {
+            return blockAccountAndCard(message);
+        }
 
-            // b. Проверка статуса счета
-            if (account.getStatus() == AccountStatus.BLOCKED ||
-                    account.getStatus() == AccountStatus.ARRESTED) {
-                return createFailedResult(message, "Account is blocked or arrested");
-            }
+        // Поиск счета и карты
+        Account account;
+        Card card;
+        try {
+            account = accountService.getForUpdate(message.getAccountId());
+            card = cardService.findByCardId(message.getCardId());
+        } catch (RuntimeException e) {
+            rethrowIfDataAccess(e);
+            log.warn("Transaction {} rejected: {}", message.getMessageId(), e.getMessage());
+            return createFailedResult(message, "Processing error: " + e.getMessage());
+        }
 
-            // Обработка транзакции
-            Transaction transaction = createTransaction(message, account, card);
+        // b. Проверка статуса счета
+        if (account.getStatus() == AccountStatus.BLOCKED ||
+                account.getStatus() == AccountStatus.ARRESTED) {
+            return createFailedResult(message, "Account is blocked or arrested");
+        }
 
-            if (message.getType() == TransactionType.CREDIT) {
-                return processCreditTransaction(message, account, transaction);
-            } else {
-                return processDebitTransaction(message, account, transaction);
-            }
+        // Обработка транзакции
+        Transaction transaction = createTransaction(message, account, card);
 
-        } catch (Exception e) {
-            log.error("Error processing transaction: {}", message.getMessageId(), e);
-            return createFailedResult(message, "Processing error: " + e.getMessage());
+        if (message.getType() == TransactionType.CREDIT) {
+            return processCreditTransaction(message, account, transaction);
+        } else {
+            return processDebitTransaction(message, account, transaction);
         }
     }
 
@@ -79,6 +110,7 @@ public class TransactionProcessingService {
 
         transaction.setStatus(TransactionStatus.COMPLETED);
         transactionService.save(transaction);
+        velocityTracker.recordCompleted(message.getCardId(), transaction.getTimestamp(), transaction.getAmount());
 
         // c. Создание графика платежей для кредитного счета
         if (Boolean.TRUE.equals(account.getIsRecalc())) {
@@ -103,6 +135,7 @@ public class TransactionProcessingService {
 
             transaction.setStatus(TransactionStatus.COMPLETED);
             transactionService.save(transaction);
+            velocityTracker.recordCompleted(message.getCardId(), transaction.getTimestamp(), transaction.getAmount());
 
             return createSuccessResult(message, account, "Debit transaction processed");
         } else {
@@ -117,7 +150,8 @@ public class TransactionProcessingService {
         // Расчет ежемесячного платежа (упрощенная формула)
         BigDecimal monthlyAmount = calculateMonthlyPayment(account, amount);
 
-        // Создание платежей на 12 месяцев (пример)
+        // Создание платежей на 12 месяцев (пример) - весь график пишется одним batch INSERT
+        List<Payment> schedule = new ArrayList<>(12);
         for (int i = 1; i <= 12; i++) {
             Payment payment = new Payment();
             payment.setAccount(account);
@@ -129,8 +163,9 @@ public class TransactionProcessingService {
             payment.setStatus(PaymentStatus.PENDING);
             payment.setExpired(false);
 
-            paymentService.save(payment);
+            schedule.add(payment);
         }
+        paymentService.saveAll(schedule);
     }
 
     private void processMonthlyPayment(Account account, LocalDateTime transactionDate) {
@@ -163,22 +198,35 @@ public class TransactionProcessingService {
     }
 
     private TransactionProcessingResultDto blockAccountAndCard(TransactionMessageDto message) {
+        // Сначала находим обе сущности, чтобы не заблокировать счет без карты
+        Account account;
+        Card card;
         try {
-            Account account = accountService.findById(message.getAccountId());
-            Card card = cardService.findByCardId(message.getCardId());
+            account = accountService.getForUpdate(message.getAccountId());
+            card = cardService.findByCardId(message.getCardId());
+        } catch (RuntimeException e) {
+            rethrowIfDataAccess(e);
+            log.error("Error blocking account: {}", message.getMessageId(), e);
+            return createFailedResult(message, "Error blocking account");
+        }
 
-            account.setStatus(AccountStatus.BLOCKED);
-            accountService.save(account);
+        account.setStatus(AccountStatus.BLOCKED);
+        accountService.save(account);
 
-            card.setStatus(org.example.accountModels.enums.CardStatus.BLOCKED);
-            cardService.save(card);
+        card.setStatus(org.example.accountModels.enums.CardStatus.BLOCKED);
+        cardService.save(card);
 
-            log.warn("Account and card blocked due to suspicious activity: {}", message.getCardId());
+        log.warn("Account and card blocked due to suspicious activity: {}", message.getCardId());
 
-            return createBlockedResult(message, "Account blocked due to suspicious activity");
-        } catch (Exception e) {
-            log.error("Error blocking account: {}", message.getMessageId(), e);
-            return createFailedResult(message, "Error blocking account");
+        return createBlockedResult(message, "Account blocked due to suspicious activity");
+    }
+
+    /**
+     * Ошибка БД могла пометить транзакцию группы rollback-only - превращать ее в FAILED-результат нельзя
+     */
+    private void rethrowIfDataAccess(RuntimeException e) {
+        if (e instanceof DataAccessException || e instanceof PersistenceException) {
+            throw e;
         }
     }
 
@@ -220,7 +268,9 @@ public class TransactionProcessingService {
         transaction.setType(convertTransactionType(message.getType()));
         transaction.setStatus(TransactionStatus.PENDING);
         transaction.setTimestamp(LocalDateTime.now());
-        return transactionService.save(transaction);
+        Transaction saved = transactionService.save(transaction);
+        velocityTracker.recordAttempt(message.getCardId(), saved.getTimestamp());
+        return saved;
     }
 
     private org.example.accountModels.enums.TransactionType convertTransactionType(
@@ -40,6 +40,10 @@ public class TransactionService {
         return transactionRepository.countByCardCardIdAndTimestampAfter(cardId, startTime);
     }
 
+    public TransactionRepository.CompletedAmountAggregate aggregateCompletedByCardSince(String cardId, LocalDateTime startTime) {
+        return transactionRepository.aggregateCompletedSince(cardId, startTime);
+    }
+
     public List<Transaction> findFailedTransactionsByAccount(Long accountId) {
         return transactionRepository.findByAccountIdAndStatus(accountId, TransactionStatus.FAILED);
     }
@@ -0,0 +1,2 @@
+-- Индекс под оконные запросы антифрода по карте: стоимость запроса ограничена размером окна
+CREATE INDEX IF NOT EXISTS idx_transactions_card_timestamp ON transactions (card_id, timestamp);
@@ -0,0 +1,4 @@
+-- Переводим payments на выделение id блоками по 50 (pooled-оптимизатор Hibernate),
+-- чтобы INSERT графика платежей уходили одним JDBC batch
+ALTER SEQUENCE payments_id_seq INCREMENT BY 50;
+SELECT setval('payments_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM payments));
@@ -0,0 +1,11 @@
+-- Реестр обработанных сообщений (идемпотентный consumer): запись о сообщении вставляется
+-- в той же транзакции, что и изменение баланса; повторная доставка упирается в PRIMARY KEY
+CREATE TABLE processed_messages (
+    consumer VARCHAR(50) NOT NULL,
+    message_id UUID NOT NULL,
+    processed_at TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (consumer, message_id)
+);
+
+-- Очистка по сроку хранения
+CREATE INDEX idx_processed_messages_processed_at ON processed_messages (processed_at);
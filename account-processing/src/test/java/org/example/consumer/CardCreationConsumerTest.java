@@ -0,0 +1,79 @@
+package org.example.consumer;
+
+import org.example.accountModels.entity.Account;
+import org.example.accountModels.enums.AccountStatus;
+import org.example.dto.CardCreateDto;
+import org.example.dto.CardCreationResultDto;
+import org.example.repository.AccountRepository;
+import org.example.repository.CardRepository;
+import org.example.service.CardCreationResultPublisher;
+import org.example.service.CardService;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CardCreationConsumerTest {
+
+    private final CardService cardService = mock(CardService.class);
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final CardRepository cardRepository = mock(CardRepository.class);
+    private final CardCreationResultPublisher resultPublisher = mock(CardCreationResultPublisher.class);
+    private final Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+    private final CardCreationConsumer consumer =
+            new CardCreationConsumer(cardService, accountRepository, cardRepository, resultPublisher);
+
+    @Test
+    void transientFailurePublishesNoResultAndIsRetried() {
+        CardCreateDto message = message();
+        when(cardRepository.findByCardId("card-1")).thenReturn(Optional.empty());
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account(AccountStatus.ACTIVE)));
+        when(cardService.createCard(message)).thenThrow(new CannotAcquireLockException("lock timeout"));
+
+        assertThatThrownBy(() -> consumer.consumeCardCreationMessage(message, acknowledgment))
+                .isInstanceOf(CannotAcquireLockException.class);
+
+        verify(resultPublisher, never()).publish(any(), anyString(), anyString());
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void inactiveAccountIsRejectedWithoutRetry() {
+        CardCreateDto message = message();
+        when(cardRepository.findByCardId("card-1")).thenReturn(Optional.empty());
+        when(accountRepository.findById(1L)).thenReturn(Optional.of(account(AccountStatus.BLOCKED)));
+
+        consumer.consumeCardCreationMessage(message, acknowledgment);
+
+        verify(resultPublisher).publish(eq(message), eq(CardCreationResultDto.STATUS_REJECTED), anyString());
+        verify(cardService, never()).createCard(any());
+        verify(acknowledgment).acknowledge();
+    }
+
+    private static CardCreateDto message() {
+        CardCreateDto message = new CardCreateDto();
+        message.setRequestId("request-1");
+        message.setAccountId(1L);
+        message.setCardId("card-1");
+        message.setPaymentSystem("VISA");
+        return message;
+    }
+
+    private static Account account(AccountStatus status) {
+        Account account = new Account();
+        account.setId(1L);
+        account.setStatus(status);
+        return account;
+    }
+}
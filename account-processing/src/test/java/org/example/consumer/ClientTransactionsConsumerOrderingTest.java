@@ -0,0 +1,144 @@
+package org.example.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.example.accountModels.enums.TransactionType;
+import org.example.dto.TransactionMessageDto;
+import org.example.service.AccountExecutionEngine;
+import org.example.service.TransactionProcessingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchAcknowledgingMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Порядок применения транзакций одного счета при нескольких consumer'ах:
+ * сообщения с ключом accountId идут через настоящий ClientTransactionsConsumer,
+ * листенер работает с concurrency по числу партиций.
+ */
+@EmbeddedKafka(partitions = ClientTransactionsConsumerOrderingTest.PARTITIONS, topics = "client_transactions")
+class ClientTransactionsConsumerOrderingTest {
+
+    static final int PARTITIONS = 6;
+    private static final int ACCOUNTS = 24;
+    private static final int MESSAGES_PER_ACCOUNT = 100;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void transactionsOfOneAccountAreAppliedInOrderByConcurrentConsumers(EmbeddedKafkaBroker broker) throws Exception {
+        Map<String, List<Integer>> applied = new ConcurrentHashMap<>();
+        Set<String> consumerThreads = ConcurrentHashMap.newKeySet();
+        CountDownLatch allApplied = new CountDownLatch(ACCOUNTS * MESSAGES_PER_ACCOUNT);
+
+        // Вместо БД запоминаем порядок, в котором сообщения каждого счета дошли до обработки
+        TransactionProcessingService processingService = mock(TransactionProcessingService.class);
+        when(processingService.processAccountBatch(anyList())).thenAnswer(invocation -> {
+            List<TransactionMessageDto> messages = invocation.getArgument(0);
+            for (TransactionMessageDto message : messages) {
+                applied.computeIfAbsent(message.getAccountId(), k -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(message.getAmount().intValue());
+                allApplied.countDown();
+            }
+            return List.of();
+        });
+
+        AccountExecutionEngine engine = new AccountExecutionEngine(4);
+        ClientTransactionsConsumer consumer = new ClientTransactionsConsumer(
+                processingService, engine, mock(KafkaTemplate.class));
+
+        ConcurrentMessageListenerContainer<String, TransactionMessageDto> container = startContainer(broker,
+                (BatchAcknowledgingMessageListener<String, TransactionMessageDto>) (records, acknowledgment) -> {
+                    consumerThreads.add(Thread.currentThread().getName());
+                    consumer.consume(records.stream().map(ConsumerRecord::value).toList(), acknowledgment);
+                });
+
+        try {
+            sendInterleaved(broker);
+
+            assertThat(allApplied.await(60, TimeUnit.SECONDS)).isTrue();
+            assertThat(applied).hasSize(ACCOUNTS);
+            applied.forEach((accountId, sequence) -> assertThat(sequence)
+                    .as("order of account %s", accountId)
+                    .hasSize(MESSAGES_PER_ACCOUNT)
+                    .isSorted());
+            assertThat(consumerThreads).hasSizeGreaterThan(1);
+        } finally {
+            container.stop();
+            engine.shutdown();
+        }
+    }
+
+    private ConcurrentMessageListenerContainer<String, TransactionMessageDto> startContainer(
+            EmbeddedKafkaBroker broker, BatchAcknowledgingMessageListener<String, TransactionMessageDto> listener)
+            throws Exception {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("ordering-test", "false", broker);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 50);
+        DefaultKafkaConsumerFactory<String, TransactionMessageDto> consumerFactory = new DefaultKafkaConsumerFactory<>(
+                props, new StringDeserializer(), new JsonDeserializer<>(TransactionMessageDto.class, false));
+
+        ContainerProperties containerProperties = new ContainerProperties("client_transactions");
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setMessageListener(listener);
+
+        ConcurrentMessageListenerContainer<String, TransactionMessageDto> container =
+                new ConcurrentMessageListenerContainer<>(consumerFactory, containerProperties);
+        container.setConcurrency(PARTITIONS);
+        container.start();
+        ContainerTestUtils.waitForAssignment(container, PARTITIONS);
+        return container;
+    }
+
+    /**
+     * Сообщения разных счетов перемешаны; ключ - accountId, как у TransactionProducerService
+     */
+    private void sendInterleaved(EmbeddedKafkaBroker broker) {
+        DefaultKafkaProducerFactory<String, Object> producerFactory = new DefaultKafkaProducerFactory<>(
+                KafkaTestUtils.producerProps(broker), new StringSerializer(), new JsonSerializer<>());
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory);
+        try {
+            for (int sequence = 0; sequence < MESSAGES_PER_ACCOUNT; sequence++) {
+                for (int account = 1; account <= ACCOUNTS; account++) {
+                    TransactionMessageDto message = new TransactionMessageDto();
+                    message.setMessageId(UUID.randomUUID());
+                    message.setAccountId(String.valueOf(account));
+                    message.setCardId("card-" + account);
+                    message.setAmount(BigDecimal.valueOf(sequence));
+                    message.setType(TransactionType.CREDIT);
+                    message.setTimestamp(LocalDateTime.now());
+                    template.send("client_transactions", message.getAccountId(), message);
+                }
+            }
+            template.flush();
+        } finally {
+            producerFactory.destroy();
+        }
+    }
+}
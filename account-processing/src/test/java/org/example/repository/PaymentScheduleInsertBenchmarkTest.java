@@ -0,0 +1,165 @@
+package org.example.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Скорость записи графиков платежей до и после перехода payments на pooled sequence + JDBC batch.
+ * Воспроизводит SQL, который выполняет Hibernate в обоих режимах, на схеме из миграций Flyway:
+ * <ul>
+ *     <li>до: IDENTITY - каждая строка отдельным INSERT ... RETURNING id (batch для IDENTITY невозможен);</li>
+ *     <li>после: один nextval на 50 id (allocationSize = 50) и весь график одним batch
+ *     при reWriteBatchedInserts=true.</li>
+ * </ul>
+ * Каждый график (12 строк) пишется в своей транзакции, как в TransactionProcessingService.
+ * Запуск: mvn test -Dbenchmark=true -Dtest=PaymentScheduleInsertBenchmarkTest (нужен Docker).
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PaymentScheduleInsertBenchmarkTest {
+
+    private static final int SCHEDULE_SIZE = 12;
+    private static final int ALLOCATION_SIZE = 50;
+    private static final int WARMUP_SCHEDULES = 200;
+    private static final int MEASURED_SCHEDULES = 2_000;
+    private static final long ACCOUNT_ID = 1L;
+
+    private static final String INSERT_COLUMNS = "account_id, payment_date, amount, monthly_payment, "
+            + "is_credit, type, status, expired";
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:15");
+
+    @BeforeAll
+    static void migrate() {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+
+    @Test
+    void pooledSequenceWithBatchInsertWritesSchedulesFaster() throws SQLException {
+        double identityRowsPerSecond;
+        try (Connection connection = connect(false)) {
+            writeSchedulesWithIdentity(connection, WARMUP_SCHEDULES);
+            identityRowsPerSecond = rowsPerSecond(() -> writeSchedulesWithIdentity(connection, MEASURED_SCHEDULES));
+        }
+
+        double batchedRowsPerSecond;
+        try (Connection connection = connect(true)) {
+            PooledIds ids = new PooledIds(connection);
+            writeSchedulesBatched(connection, ids, WARMUP_SCHEDULES);
+            batchedRowsPerSecond = rowsPerSecond(() -> writeSchedulesBatched(connection, ids, MEASURED_SCHEDULES));
+        }
+
+        System.out.printf("payments insert: IDENTITY row-by-row %.0f rows/s, pooled sequence + batch %.0f rows/s (x%.1f)%n",
+                identityRowsPerSecond, batchedRowsPerSecond, batchedRowsPerSecond / identityRowsPerSecond);
+        assertThat(batchedRowsPerSecond).isGreaterThan(identityRowsPerSecond);
+    }
+
+    private void writeSchedulesWithIdentity(Connection connection, int schedules) throws SQLException {
+        String sql = "INSERT INTO payments (" + INSERT_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement insert = connection.prepareStatement(sql, new String[]{"id"})) {
+            for (int schedule = 0; schedule < schedules; schedule++) {
+                for (int month = 1; month <= SCHEDULE_SIZE; month++) {
+                    bindPayment(insert, 1, month);
+                    insert.executeUpdate();
+                    try (ResultSet generatedKeys = insert.getGeneratedKeys()) {
+                        generatedKeys.next();
+                    }
+                }
+                connection.commit();
+            }
+        }
+    }
+
+    private void writeSchedulesBatched(Connection connection, PooledIds ids, int schedules) throws SQLException {
+        String sql = "INSERT INTO payments (id, " + INSERT_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        try (PreparedStatement insert = connection.prepareStatement(sql)) {
+            for (int schedule = 0; schedule < schedules; schedule++) {
+                for (int month = 1; month <= SCHEDULE_SIZE; month++) {
+                    insert.setLong(1, ids.next());
+                    bindPayment(insert, 2, month);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                connection.commit();
+            }
+        }
+    }
+
+    private void bindPayment(PreparedStatement insert, int firstIndex, int month) throws SQLException {
+        BigDecimal monthlyAmount = new BigDecimal("1000.00");
+        insert.setLong(firstIndex, ACCOUNT_ID);
+        insert.setTimestamp(firstIndex + 1, Timestamp.valueOf(LocalDateTime.now().plusMonths(month)));
+        insert.setBigDecimal(firstIndex + 2, monthlyAmount);
+        insert.setBigDecimal(firstIndex + 3, monthlyAmount);
+        insert.setBoolean(firstIndex + 4, true);
+        insert.setString(firstIndex + 5, "LOAN_PAYMENT");
+        insert.setString(firstIndex + 6, "PENDING");
+        insert.setBoolean(firstIndex + 7, false);
+    }
+
+    private double rowsPerSecond(SqlRunnable run) throws SQLException {
+        long start = System.nanoTime();
+        run.run();
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        return MEASURED_SCHEDULES * SCHEDULE_SIZE / seconds;
+    }
+
+    private Connection connect(boolean rewriteBatchedInserts) throws SQLException {
+        String url = POSTGRES.getJdbcUrl() + (rewriteBatchedInserts ? "&reWriteBatchedInserts=true" : "");
+        Connection connection = DriverManager.getConnection(url, POSTGRES.getUsername(), POSTGRES.getPassword());
+        connection.setAutoCommit(false);
+        return connection;
+    }
+
+    @FunctionalInterface
+    private interface SqlRunnable {
+        void run() throws SQLException;
+    }
+
+    /**
+     * Pooled-оптимизатор Hibernate: nextval возвращает верхнюю границу блока из ALLOCATION_SIZE id
+     */
+    private static final class PooledIds {
+        private final Connection connection;
+        private long next;
+        private long limit;
+
+        PooledIds(Connection connection) {
+            this.connection = connection;
+        }
+
+        long next() throws SQLException {
+            if (next >= limit) {
+                try (Statement statement = connection.createStatement();
+                     ResultSet resultSet = statement.executeQuery("SELECT nextval('payments_id_seq')")) {
+                    resultSet.next();
+                    limit = resultSet.getLong(1) + 1;
+                    next = limit - ALLOCATION_SIZE;
+                }
+            }
+            return next++;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AccountExecutionEngineTest {
+
+    private static final int ACCOUNTS = 16;
+    private static final int SUBMITTERS = 8;
+    private static final int INCREMENTS_PER_SUBMITTER = 2_000;
+
+    private AccountExecutionEngine engine;
+    private ExecutorService submitters;
+
+    @BeforeEach
+    void setUp() {
+        engine = new AccountExecutionEngine(4);
+        submitters = Executors.newFixedThreadPool(SUBMITTERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        submitters.shutdownNow();
+        engine.shutdown();
+    }
+
+    @Test
+    void concurrentIncrementsOfOneAccountAreNotLost() throws Exception {
+        // Обычный long без синхронизации: корректный итог возможен только при строго
+        // последовательном read-modify-write в полосе счета
+        long[] balances = new long[ACCOUNTS];
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<?>> workers = new ArrayList<>(SUBMITTERS);
+        for (int submitter = 0; submitter < SUBMITTERS; submitter++) {
+            workers.add(submitters.submit(() -> {
+                start.await();
+                List<CompletableFuture<Void>> pending = new ArrayList<>();
+                for (int i = 0; i < INCREMENTS_PER_SUBMITTER; i++) {
+                    for (int account = 0; account < ACCOUNTS; account++) {
+                        int index = account;
+                        pending.add(engine.submit(String.valueOf(account), () -> {
+                            long current = balances[index];
+                            Thread.onSpinWait();
+                            balances[index] = current + 1;
+                            return null;
+                        }));
+                    }
+                }
+                CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(60, TimeUnit.SECONDS);
+        }
+
+        for (int account = 0; account < ACCOUNTS; account++) {
+            assertThat(balances[account])
+                    .as("balance of account %d", account)
+                    .isEqualTo((long) SUBMITTERS * INCREMENTS_PER_SUBMITTER);
+        }
+    }
+
+    @Test
+    void tasksOfOneAccountRunInSubmissionOrder() {
+        List<Integer> applied = new ArrayList<>();
+
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            int sequence = i;
+            pending.add(engine.submit("42", () -> {
+                applied.add(sequence);
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+
+        assertThat(applied).hasSize(10_000).isSorted();
+    }
+
+    @Test
+    void sameAccountAlwaysMapsToSameLane() {
+        for (int account = 0; account < 1_000; account++) {
+            String accountId = String.valueOf(account);
+            int lane = engine.laneIndex(accountId);
+            assertThat(lane).isBetween(0, engine.getLaneCount() - 1);
+            assertThat(engine.laneIndex(accountId)).isEqualTo(lane);
+        }
+    }
+}
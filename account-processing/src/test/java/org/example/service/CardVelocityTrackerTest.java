@@ -0,0 +1,83 @@
+package org.example.service;
+
+import org.example.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Окно по карте внутри транзакции группы счета: сообщения одного poll'а видят друг друга до commit
+ */
+class CardVelocityTrackerTest {
+
+    private static final String CARD = "card-1";
+    private static final int MAX_TRANSACTIONS = 10;
+
+    private final CardVelocityTracker tracker = new CardVelocityTracker(mock(TransactionRepository.class), 5, 10);
+    private final FraudDetectionService fraudDetection = new FraudDetectionService(
+            tracker, mock(TransactionService.class), mock(AccountService.class), mock(CardService.class));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fraudDetection, "maxTransactions", MAX_TRANSACTIONS);
+        ReflectionTestUtils.setField(fraudDetection, "timePeriodMinutes", 5);
+        ReflectionTestUtils.setField(fraudDetection, "amountWindowMinutes", 5);
+        ReflectionTestUtils.setField(fraudDetection, "maxAmount", new BigDecimal("5000000"));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void batchOfOneCardIsStoppedAtMaxTransactionsBeforeCommit() {
+        int processed = 0;
+        // Как processAccountBatch: проверка, затем запись попытки - все в одной транзакции
+        for (int i = 0; i < MAX_TRANSACTIONS + 5; i++) {
+            if (fraudDetection.isSuspiciousActivity(CARD)) {
+                break;
+            }
+            tracker.recordAttempt(CARD, LocalDateTime.now());
+            processed++;
+        }
+
+        assertThat(processed).isEqualTo(MAX_TRANSACTIONS);
+    }
+
+    @Test
+    void pendingActivityIsDroppedOnRollback() {
+        tracker.recordAttempt(CARD, LocalDateTime.now());
+        tracker.recordCompleted(CARD, LocalDateTime.now(), new BigDecimal("100"));
+        assertThat(tracker.snapshot(CARD).transactionCount()).isEqualTo(1);
+
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(tracker.snapshot(CARD)).isEqualTo(new CardVelocityTracker.Snapshot(0, BigDecimal.ZERO));
+    }
+
+    @Test
+    void pendingActivityIsAppliedOnceOnCommit() {
+        tracker.recordAttempt(CARD, LocalDateTime.now());
+        tracker.recordCompleted(CARD, LocalDateTime.now(), new BigDecimal("100"));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.clearSynchronization();
+
+        CardVelocityTracker.Snapshot committed = tracker.snapshot(CARD);
+        assertThat(committed.transactionCount()).isEqualTo(1);
+        assertThat(committed.completedAmount()).isEqualByComparingTo("100");
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.service;
+
+import org.example.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FraudDetectionServiceTest {
+
+    private static final String CARD = "card-1";
+    private static final int VELOCITY_WINDOW_MINUTES = 5;
+
+    private final CardVelocityTracker tracker =
+            new CardVelocityTracker(mock(TransactionRepository.class), VELOCITY_WINDOW_MINUTES, 10);
+    private final TransactionService transactionService = mock(TransactionService.class);
+    private final FraudDetectionService fraudDetection = new FraudDetectionService(
+            tracker, transactionService, mock(AccountService.class), mock(CardService.class));
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fraudDetection, "maxTransactions", 10);
+        ReflectionTestUtils.setField(fraudDetection, "timePeriodMinutes", VELOCITY_WINDOW_MINUTES);
+        ReflectionTestUtils.setField(fraudDetection, "maxAmount", new BigDecimal("1000"));
+
+        // В окне 5 минут по карте завершено 1500 - больше лимита
+        tracker.recordAttempt(CARD, LocalDateTime.now());
+        tracker.recordCompleted(CARD, LocalDateTime.now(), new BigDecimal("1500"));
+    }
+
+    @Test
+    void shorterAmountWindowIsSummedInDatabase() {
+        ReflectionTestUtils.setField(fraudDetection, "amountWindowMinutes", 1);
+        // За последнюю минуту завершено только 200
+        TransactionRepository.CompletedAmountAggregate lastMinute = aggregate(new BigDecimal("200"));
+        when(transactionService.aggregateCompletedByCardSince(eq(CARD), any())).thenReturn(lastMinute);
+
+        assertThat(fraudDetection.isSuspiciousActivity(CARD)).isFalse();
+        verify(transactionService).aggregateCompletedByCardSince(eq(CARD), any());
+    }
+
+    @Test
+    void equalAmountWindowUsesInMemoryWindow() {
+        ReflectionTestUtils.setField(fraudDetection, "amountWindowMinutes", VELOCITY_WINDOW_MINUTES);
+
+        assertThat(fraudDetection.isSuspiciousActivity(CARD)).isTrue();
+        verify(transactionService, never()).aggregateCompletedByCardSince(any(), any());
+    }
+
+    private static TransactionRepository.CompletedAmountAggregate aggregate(BigDecimal total) {
+        TransactionRepository.CompletedAmountAggregate aggregate = mock(TransactionRepository.CompletedAmountAggregate.class);
+        when(aggregate.getTotalAmount()).thenReturn(total);
+        when(aggregate.getTransactionCount()).thenReturn(1L);
+        return aggregate;
+    }
+}
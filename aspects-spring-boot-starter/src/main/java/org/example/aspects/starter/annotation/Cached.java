@@ -10,4 +10,6 @@ import java.lang.annotation.Target;
 public @interface Cached {
     String cacheName() default "";
     long ttl() default -1; // -1 означает использование значения по умолчанию
+    boolean coalesce() default false; // одновременные промахи по одному ключу выполняют одну загрузку
+    long maximumSize() default -1; // -1 означает использование aspects.cache.maximum-size(s)
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package org.example.aspects.starter.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * После успешного выполнения метода удаляет записи из кэшей @Cached.
+ * Ключ строится по аргументам метода так же, как в @Cached, либо по возвращенному результату.
+ * Внутри транзакции записи удаляются еще раз после ее commit.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Repeatable(CachedEvicts.class)
+public @interface CachedEvict {
+    String[] cacheNames();
+    boolean allEntries() default false; // очистить кэши целиком
+    boolean keyFromResult() default false; // ключ из поля id результата
+    String resultProperty() default ""; // поле результата для ключа вместо id
+    int keyParam() default -1; // индекс аргумента, ключ строится только по нему (как у метода чтения с одним аргументом)
+}
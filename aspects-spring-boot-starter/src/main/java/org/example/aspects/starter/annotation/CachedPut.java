@@ -0,0 +1,21 @@
+package org.example.aspects.starter.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * После успешного выполнения метода кладет его результат в кэш @Cached с тем же cacheName.
+ * По умолчанию ключ берется из поля id результата, чтобы запись совпала с ключом метода чтения.
+ * Внутри транзакции запись попадает в кэш только после ее commit.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CachedPut {
+    String cacheName();
+    long ttl() default -1; // -1 означает использование значения по умолчанию
+    boolean keyFromResult() default true; // false - ключ строится по аргументам метода
+    String resultProperty() default ""; // поле результата для ключа вместо id
+    int keyParam() default -1; // индекс аргумента, ключ строится только по нему (приоритетнее keyFromResult)
+}
@@ -3,20 +3,33 @@ package org.example.aspects.starter.aspect;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.example.aspects.starter.annotation.Cached;
+import org.example.aspects.starter.annotation.CachedEvict;
+import org.example.aspects.starter.annotation.CachedPut;
+import org.example.aspects.starter.cache.CacheBackend;
+import org.example.aspects.starter.cache.CacheBackendFactory;
+import org.example.aspects.starter.cache.CacheKey;
+import org.example.aspects.starter.cache.CacheKeyGenerator;
+import org.example.aspects.starter.cache.CacheSizeRegistry;
+import org.example.aspects.starter.cache.CacheStatistics;
 import org.example.aspects.starter.config.AspectsProperties;
 import org.example.aspects.starter.dto.CacheEntry;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.lang.reflect.Method;
 import java.time.Instant;
-import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -30,21 +43,47 @@ public class CachedAspect {
 
     private final AspectsProperties.Cache properties;
 
-    // Хранилище кэшей: Map<CacheName, Map<Key, CacheEntry>>
-    private final Map<String, Map<Object, CacheEntry>> cacheStore = new ConcurrentHashMap<>();
+    // Хранилище кэшей (simple / tiny-lfu / собственная реализация)
+    private final CacheBackend backend;
+
+    // Счетчики попаданий, промахов и загрузок по каждому кэшу
+    private final CacheStatistics statistics;
+
+    // Размеры кэшей из @Cached(maximumSize) по имени кэша
+    private final CacheSizeRegistry cacheSizes;
+
+    // Ключи кэша: способ построения определяется один раз на метод
+    private final CacheKeyGenerator keyGenerator = new CacheKeyGenerator();
+
+    // Загрузки, выполняющиеся прямо сейчас (для @Cached(coalesce = true)): ключ - (cacheName, key)
+    private final Map<CacheKey, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
 
     // Планировщик для очистки просроченных записей
     private ScheduledExecutorService cleanupScheduler;
 
-    // Конструктор для Autoconfiguration
-    public CachedAspect(AspectsProperties.Cache properties) {
+    // Конструктор для ручного создания: backend создается переданной фабрикой
+    public CachedAspect(AspectsProperties.Cache properties, CacheBackendFactory backendFactory) {
+        this(properties, backendFactory, new CacheStatistics());
+    }
+
+    private CachedAspect(AspectsProperties.Cache properties, CacheBackendFactory backendFactory,
+                         CacheStatistics statistics) {
+        this(properties, backendFactory.create(properties, statistics), statistics, new CacheSizeRegistry());
+    }
+
+    public CachedAspect(AspectsProperties.Cache properties, CacheBackend backend, CacheStatistics statistics,
+                        CacheSizeRegistry cacheSizes) {
         this.properties = properties;
+        this.backend = backend;
+        this.statistics = statistics;
+        this.cacheSizes = cacheSizes;
     }
 
-    // Альтернативный конструктор для ручного создания
+    // Конструктор для Autoconfiguration
     @Autowired
-    public CachedAspect(AspectsProperties properties) {
-        this.properties = properties.getCache();
+    public CachedAspect(AspectsProperties properties, CacheBackend backend, CacheStatistics statistics,
+                        CacheSizeRegistry cacheSizes) {
+        this(properties.getCache(), backend, statistics, cacheSizes);
     }
 
     @PostConstruct
@@ -61,8 +100,9 @@ public class CachedAspect {
                     TimeUnit.SECONDS
             );
 
-            logger.info("CachedAspect initialized with default TTL: {} ms, cleanup interval: {} sec",
-                    properties.getDefaultTtl(), properties.getCleanupInterval());
+            logger.info("CachedAspect initialized with backend: {}, default TTL: {} ms, maximum size: {}, cleanup interval: {} sec",
+                    backend.getClass().getSimpleName(), properties.getDefaultTtl(),
+                    properties.getMaximumSize(), properties.getCleanupInterval());
         } else {
             logger.info("CachedAspect is disabled");
         }
@@ -94,106 +134,213 @@ public class CachedAspect {
             return joinPoint.proceed();
         }
 
-        String methodName = joinPoint.getSignature().toShortString();
-        String cacheName = getCacheName(cached, joinPoint);
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String cacheName = CacheSizeRegistry.cacheName(cached, method);
         Object cacheKey = generateCacheKey(joinPoint);
+        CacheStatistics.Counters counters = statistics.forCache(cacheName);
 
         // Используем TTL из аннотации или из настроек
         long ttl = cached.ttl() > 0 ? cached.ttl() : properties.getDefaultTtl();
 
-        logger.debug("Checking cache for method: {}, key: {}", methodName, cacheKey);
-
         // Проверяем кэш
         CacheEntry cachedResult = getFromCache(cacheName, cacheKey);
         if (cachedResult != null) {
-            logger.info("CACHE HIT - Method: {}, Key: {}", methodName, cacheKey);
+            counters.recordHit();
+            logger.trace("CACHE HIT - Cache: {}, Key: {}", cacheName, cacheKey);
             return cachedResult.getValue();
         }
 
-        logger.debug("CACHE MISS - Method: {}, Key: {}", methodName, cacheKey);
+        counters.recordMiss();
+        logger.debug("CACHE MISS - Cache: {}, Key: {}", cacheName, cacheKey);
+
+        if (cached.coalesce()) {
+            return loadCoalesced(joinPoint, cached, cacheName, cacheKey, ttl);
+        }
+
+        return load(joinPoint, cached, cacheName, cacheKey, ttl);
+    }
+
+    private Object load(ProceedingJoinPoint joinPoint, Cached cached,
+                        String cacheName, Object cacheKey, long ttl) throws Throwable {
+        CacheStatistics.Counters counters = statistics.forCache(cacheName);
+        long startTime = System.nanoTime();
 
         // Выполняем оригинальный метод
-        Object result = joinPoint.proceed();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            counters.recordLoadFailure(System.nanoTime() - startTime);
+            throw e;
+        }
+        counters.recordLoadSuccess(System.nanoTime() - startTime);
 
-        // Сохраняем результат в кэш
+        // Сохраняем результат в кэш (внутри транзакции - после ее commit)
         if (result != null) {
-            saveToCache(cacheName, cacheKey, result, ttl);
-            logger.info("CACHE SAVED - Method: {}, Key: {}, TTL: {} ms", methodName, cacheKey, ttl);
+            // Бин, не прошедший через CacheSizeRegistry (создан вручную), регистрирует размер при первой загрузке
+            if (cacheSizes.annotatedSize(cacheName) < 0) {
+                cacheSizes.register(cacheName, cached.maximumSize());
+            }
+            long maximumSize = getMaximumSize(cacheName);
+            runAfterCommit(() -> {
+                saveToCache(cacheName, cacheKey, result, ttl, maximumSize);
+                logger.debug("CACHE SAVED - Cache: {}, Key: {}, TTL: {} ms", cacheName, cacheKey, ttl);
+            });
         }
 
         return result;
     }
 
-    private String getCacheName(Cached cached, ProceedingJoinPoint joinPoint) {
-        if (!cached.cacheName().isEmpty()) {
-            return cached.cacheName();
+    /**
+     * Одновременные промахи по одному ключу выполняют одну загрузку:
+     * первый поток вызывает метод, остальные ждут его результат (или исключение)
+     */
+    private Object loadCoalesced(ProceedingJoinPoint joinPoint, Cached cached,
+                                 String cacheName, Object cacheKey, long ttl) throws Throwable {
+        CacheKey flightKey = new CacheKey(cacheName, cacheKey);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlightLoads.putIfAbsent(flightKey, future);
+
+        if (existing != null) {
+            logger.debug("CACHE LOAD JOINED - Cache: {}, Key: {}", cacheName, cacheKey);
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause();
+            }
+        }
+
+        try {
+            // Пока мы становились ведущим, предыдущая загрузка могла уже положить значение в кэш
+            CacheEntry loaded = getFromCache(cacheName, cacheKey);
+            Object result = loaded != null ? loaded.getValue() : load(joinPoint, cached, cacheName, cacheKey, ttl);
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLoads.remove(flightKey, future);
         }
-        // Генерируем имя кэша на основе класса и метода
-        return joinPoint.getSignature().getDeclaringType().getSimpleName() +
-                "." + joinPoint.getSignature().getName();
     }
 
-    private Object generateCacheKey(ProceedingJoinPoint joinPoint) {
-        Object[] args = joinPoint.getArgs();
+    @Around("@annotation(org.example.aspects.starter.annotation.CachedPut) || "
+            + "@annotation(org.example.aspects.starter.annotation.CachedEvict) || "
+            + "@annotation(org.example.aspects.starter.annotation.CachedEvicts)")
+    public Object updateCacheOnWrite(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Кэш обновляется только после успешного выполнения метода
+        Object result = joinPoint.proceed();
 
-        // Если метод принимает один аргумент - используем его как ключ
-        if (args.length == 1) {
-            Object arg = args[0];
+        if (!properties.isEnabled()) {
+            return result;
+        }
 
-            // Если это примитив или строка - используем как есть
-            if (arg instanceof String || arg instanceof Number || arg instanceof Boolean) {
-                return arg;
-            }
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Object[] args = joinPoint.getArgs();
+        CachedEvict[] evicts = method.getAnnotationsByType(CachedEvict.class);
 
-            // Если у объекта есть ID поле - используем его
-            try {
-                var idField = arg.getClass().getDeclaredField("id");
-                idField.setAccessible(true);
-                Object idValue = idField.get(arg);
-                if (idValue != null) {
-                    return idValue;
+        // Удаляем сразу, чтобы до commit никто не прочитал старую запись, и еще раз после commit:
+        // запись, загруженная параллельно из еще не измененной строки, не переживет транзакцию
+        for (CachedEvict evict : evicts) {
+            applyEvict(evict, method, args, result);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            runAfterCommit(() -> {
+                for (CachedEvict evict : evicts) {
+                    applyEvict(evict, method, args, result);
                 }
-            } catch (Exception e) {
-                // Если нет ID поля, используем hashCode
-                logger.trace("No 'id' field found in {}, using hashCode", arg.getClass().getSimpleName());
-            }
+            });
+        }
 
-            // Используем hashCode объекта
-            return arg.hashCode();
+        CachedPut put = method.getAnnotation(CachedPut.class);
+        if (put != null && result != null) {
+            Object key = resolveWriteKey(put.keyParam(), put.keyFromResult(), put.resultProperty(), method, args, result);
+            long ttl = put.ttl() > 0 ? put.ttl() : properties.getDefaultTtl();
+            long maximumSize = getMaximumSize(put.cacheName());
+            // Незафиксированное значение в кэш не попадает: при rollback оно бы пережило транзакцию
+            runAfterCommit(() -> {
+                saveToCache(put.cacheName(), key, result, ttl, maximumSize);
+                logger.debug("CACHE PUT - Cache: {}, Key: {}", put.cacheName(), key);
+            });
         }
 
-        // Если несколько аргументов - используем их хэш
-        return Arrays.hashCode(args);
+        return result;
     }
 
-    private CacheEntry getFromCache(String cacheName, Object key) {
-        Map<Object, CacheEntry> cache = cacheStore.get(cacheName);
-        if (cache == null) {
-            return null;
+    private void applyEvict(CachedEvict evict, Method method, Object[] args, Object result) {
+        if (evict.allEntries()) {
+            for (String cacheName : evict.cacheNames()) {
+                backend.clear(cacheName);
+                logger.debug("CACHE EVICT ALL - Cache: {}", cacheName);
+            }
+            return;
         }
 
-        CacheEntry entry = cache.get(key);
-        if (entry == null) {
-            return null;
+        Object key = resolveWriteKey(evict.keyParam(), evict.keyFromResult(), evict.resultProperty(), method, args, result);
+        for (String cacheName : evict.cacheNames()) {
+            backend.evict(cacheName, key);
+            logger.debug("CACHE EVICT - Cache: {}, Key: {}", cacheName, key);
         }
+    }
 
-        // Проверяем не истекло ли время
-        if (entry.isExpired()) {
-            cache.remove(key);
-            logger.debug("Expired cache entry removed: {}/{}", cacheName, key);
-            return null;
+    private Object resolveWriteKey(int keyParam, boolean keyFromResult, String resultProperty,
+                                   Method method, Object[] args, Object result) {
+        if (keyParam >= 0) {
+            return keyGenerator.generate(method, keyParam, args);
         }
+        if (!resultProperty.isEmpty()) {
+            return keyGenerator.propertyOf(result, resultProperty);
+        }
+        if (keyFromResult) {
+            return keyGenerator.keyOf(result);
+        }
+        return keyGenerator.generate(method, args);
+    }
 
-        return entry;
+    /**
+     * Внутри транзакции изменение кэша откладывается до ее commit (при rollback не выполняется),
+     * вне транзакции выполняется сразу
+     */
+    private void runAfterCommit(Runnable cacheUpdate) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cacheUpdate.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cacheUpdate.run();
+            }
+        });
     }
 
-    private void saveToCache(String cacheName, Object key, Object value, long ttl) {
-        Map<Object, CacheEntry> cache = cacheStore.computeIfAbsent(cacheName, k -> new ConcurrentHashMap<>());
+    /**
+     * Размер определяется только именем кэша, поэтому одинаков для @Cached, @CachedPut и @CachedEvict.
+     * Приоритет: настройка для конкретного кэша, затем @Cached(maximumSize), затем общее значение
+     */
+    private long getMaximumSize(String cacheName) {
+        Long configured = properties.getMaximumSizes().get(cacheName);
+        if (configured != null) {
+            return configured;
+        }
+        long annotated = cacheSizes.annotatedSize(cacheName);
+        return annotated > 0 ? annotated : properties.getMaximumSize();
+    }
 
+    private Object generateCacheKey(ProceedingJoinPoint joinPoint) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        return keyGenerator.generate(signature.getMethod(), joinPoint.getArgs());
+    }
+
+    private CacheEntry getFromCache(String cacheName, Object key) {
+        return backend.get(cacheName, key);
+    }
+
+    private void saveToCache(String cacheName, Object key, Object value, long ttl, long maximumSize) {
         Instant expirationTime = Instant.now().plusMillis(ttl);
         CacheEntry entry = new CacheEntry(value, expirationTime, key.toString());
 
-        cache.put(key, entry);
+        backend.put(cacheName, key, entry, maximumSize);
     }
 
     private void cleanupExpiredEntries() {
@@ -201,27 +348,7 @@ public class CachedAspect {
             return;
         }
 
-        int totalRemoved = 0;
-
-        for (Map.Entry<String, Map<Object, CacheEntry>> cacheEntry : cacheStore.entrySet()) {
-            String cacheName = cacheEntry.getKey();
-            Map<Object, CacheEntry> cache = cacheEntry.getValue();
-
-            int removed = 0;
-            var iterator = cache.entrySet().iterator();
-            while (iterator.hasNext()) {
-                var entry = iterator.next();
-                if (entry.getValue().isExpired()) {
-                    iterator.remove();
-                    removed++;
-                }
-            }
-            totalRemoved += removed;
-
-            if (removed > 0) {
-                logger.debug("Cleaned {} expired entries from cache: {}", removed, cacheName);
-            }
-        }
+        int totalRemoved = backend.cleanupExpired();
 
         if (totalRemoved > 0) {
             logger.info("Total expired cache entries removed: {}", totalRemoved);
@@ -234,11 +361,8 @@ public class CachedAspect {
             return;
         }
 
-        Map<Object, CacheEntry> cache = cacheStore.get(cacheName);
-        if (cache != null) {
-            cache.remove(key);
-            logger.info("Cache evicted: {}/{}", cacheName, key);
-        }
+        backend.evict(cacheName, key);
+        logger.info("Cache evicted: {}/{}", cacheName, key);
     }
 
     public void clearCache(String cacheName) {
@@ -246,8 +370,7 @@ public class CachedAspect {
             return;
         }
 
-        Map<Object, CacheEntry> cache = cacheStore.remove(cacheName);
-        if (cache != null) {
+        if (backend.clear(cacheName)) {
             logger.info("Cache cleared: {}", cacheName);
         }
     }
@@ -257,28 +380,27 @@ public class CachedAspect {
             return;
         }
 
-        int size = cacheStore.size();
-        cacheStore.clear();
+        int size = backend.clearAll();
         logger.info("All caches cleared ({} cache(s) removed)", size);
     }
 
     // Методы для мониторинга
     public int getCacheCount() {
-        return cacheStore.size();
+        return backend.sizes().size();
     }
 
     public int getTotalEntriesCount() {
-        return cacheStore.values().stream()
-                .mapToInt(Map::size)
+        return backend.sizes().values().stream()
+                .mapToInt(Integer::intValue)
                 .sum();
     }
 
+    public CacheStatistics getStatistics() {
+        return statistics;
+    }
+
     public Map<String, Integer> getCacheStats() {
-        Map<String, Integer> stats = new ConcurrentHashMap<>();
-        cacheStore.forEach((cacheName, cache) ->
-                stats.put(cacheName, cache.size())
-        );
-        return stats;
+        return backend.sizes();
     }
 
     // Новый метод для получения информации о конкретном кэше
@@ -287,7 +409,6 @@ public class CachedAspect {
             return null;
         }
 
-        Map<Object, CacheEntry> cache = cacheStore.get(cacheName);
-        return cache != null ? cache.get(key) : null;
+        return backend.get(cacheName, key);
     }
 }
\ No newline at end of file
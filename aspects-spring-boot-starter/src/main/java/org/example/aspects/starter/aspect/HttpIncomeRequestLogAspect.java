@@ -5,6 +5,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.example.aspects.starter.annotation.HttpIncomeRequestLog;
 import org.example.aspects.starter.config.AspectsProperties;
 import org.example.aspects.starter.dto.IncomingHttpLogMessage;
+import org.example.aspects.starter.shipper.KafkaLogShipper;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
@@ -13,18 +14,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.time.Instant;
-import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Aspect
 public class HttpIncomeRequestLogAspect {
@@ -32,16 +31,16 @@ public class HttpIncomeRequestLogAspect {
     private static final Logger logger = LoggerFactory.getLogger(HttpIncomeRequestLogAspect.class);
 
     private final AspectsProperties.HttpRequest properties;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaLogShipper logShipper;
     private final ObjectMapper objectMapper;
     private String serviceName;
 
     public HttpIncomeRequestLogAspect(AspectsProperties.HttpRequest properties,
-                                      KafkaTemplate<String, Object> kafkaTemplate,
+                                      KafkaLogShipper logShipper,
                                       ObjectMapper objectMapper,
                                       @Value("${spring.application.name:unknown-service}") String serviceName) {
         this.properties = properties;
-        this.kafkaTemplate = kafkaTemplate;
+        this.logShipper = logShipper;
         this.objectMapper = objectMapper;
         this.serviceName = serviceName;
         System.out.println("=== HTTP REQUEST LOG ASPECT CONSTRUCTOR ===");
@@ -56,33 +55,25 @@ public class HttpIncomeRequestLogAspect {
 
     }
 
+    /**
+     * В потоке запроса только снимается компактная неизменяемая копия данных запроса;
+     * сериализация и отправка в Kafka выполняются в фоне {@link KafkaLogShipper}
+     */
     @Before("annotatedMethod()")
     public void logIncomingRequest(JoinPoint joinPoint) {
-        logger.info("=== HTTP REQUEST ASPECT STARTED ===");
-        logger.info("Aspect enabled: {}, Kafka enabled: {}",
-                properties.isEnabled(), properties.isKafkaEnabled());
-
-        if (!properties.isEnabled()) {
-            logger.info("Aspect disabled in configuration - skipping");
+        if (!properties.isEnabled() || !isSampled()) {
             return;
         }
 
         try {
-            logger.info("Processing HTTP request for method: {}",
-                    joinPoint.getSignature().toShortString());
-
             IncomingHttpLogMessage logMessage = createIncomingLogMessage(joinPoint);
-            logger.info("Generated log message for URI: {}", logMessage.getUri());
-
-            boolean kafkaSuccess = sendToKafka(logMessage);
 
-            if (!kafkaSuccess && properties.isFallbackToDatabase()) {
-                logger.info("Kafka failed - fallback to database");
-                handleDatabaseFallback(logMessage, "Kafka unavailable");
+            if (properties.isKafkaEnabled()) {
+                enqueueToKafka(logMessage);
+            } else if (properties.isFallbackToDatabase()) {
+                handleDatabaseFallback(logMessage, "Kafka disabled in configuration");
             }
 
-            logger.info("=== HTTP REQUEST ASPECT COMPLETED ===");
-
         } catch (Exception e) {
             logger.error("Failed to log incoming HTTP request: {}", e.getMessage(), e);
         }
@@ -111,28 +102,36 @@ public class HttpIncomeRequestLogAspect {
             logMessage.setHttpMethod(request.getMethod());
             logMessage.setRemoteAddress(getClientIpAddress(request));
 
-            Map<String, Object> parameters = new HashMap<>();
-            request.getParameterMap().forEach((key, values) -> {
-                if (values.length == 1) {
-                    parameters.put(key, values[0]);
-                } else {
-                    parameters.put(key, values);
-                }
-            });
-            logMessage.setParameters(parameters);
+            // Копируем значения: объект запроса может быть переиспользован контейнером до отправки лога
+            Map<String, String[]> parameterMap = request.getParameterMap();
+            if (parameterMap.isEmpty()) {
+                logMessage.setParameters(Map.of());
+            } else {
+                Map<String, Object> parameters = new HashMap<>(parameterMap.size());
+                parameterMap.forEach((key, values) ->
+                        parameters.put(key, values.length == 1 ? values[0] : List.of(values)));
+                logMessage.setParameters(Map.copyOf(parameters));
+            }
 
+            // Только заголовки из allow-list, без перебора всех заголовков запроса
             Map<String, String> headers = new HashMap<>();
-            Enumeration<String> headerNames = request.getHeaderNames();
-            while (headerNames.hasMoreElements()) {
-                String headerName = headerNames.nextElement();
-                headers.put(headerName, request.getHeader(headerName));
+            for (String headerName : properties.getHeaderAllowList()) {
+                String value = request.getHeader(headerName);
+                if (value != null) {
+                    headers.put(headerName, value);
+                }
             }
-            logMessage.setHeaders(headers);
+            logMessage.setHeaders(Map.copyOf(headers));
 
             logMessage.setBody("Body available via request wrapper for GET requests");
         }
     }
 
+    private boolean isSampled() {
+        double sampleRate = properties.getSampleRate();
+        return sampleRate >= 1.0 || (sampleRate > 0.0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
     private String getClientIpAddress(HttpServletRequest request) {
         String xForwardedFor = request.getHeader("X-Forwarded-For");
         if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
@@ -147,36 +146,24 @@ public class HttpIncomeRequestLogAspect {
         return request.getRemoteAddr();
     }
 
-    private boolean sendToKafka(IncomingHttpLogMessage logMessage) {
-        if (!properties.isKafkaEnabled()) {
-            logger.info("Kafka disabled in configuration for HTTP request logging");
-            return false;
-        }
-
-        try {
-            logger.info("Sending incoming HTTP request log to Kafka topic: {}", properties.getKafkaTopic());
-
-            var message = MessageBuilder
-                    .withPayload(logMessage)
-                    .setHeader(KafkaHeaders.TOPIC, properties.getKafkaTopic())
-                    .setHeader(KafkaHeaders.KEY, serviceName)
-                    .setHeader("type", "INFO")
-                    .setHeader("logType", "HTTP_REQUEST")
-                    .setHeader("errorTimestamp", Instant.now().toString())
-                    .build();
-
-            var result = kafkaTemplate.send(message).get(5, TimeUnit.SECONDS);
-
-            logger.info("Incoming HTTP log sent successfully to Kafka. Topic: {}, Partition: {}, Offset: {}",
-                    result.getRecordMetadata().topic(),
-                    result.getRecordMetadata().partition(),
-                    result.getRecordMetadata().offset());
-            return true;
-
-        } catch (Exception e) {
-            logger.error("Kafka send failed for incoming HTTP log: {}", e.getMessage());
-            return false;
-        }
+    private void enqueueToKafka(IncomingHttpLogMessage logMessage) {
+        var message = MessageBuilder
+                .withPayload(logMessage)
+                .setHeader(KafkaHeaders.TOPIC, properties.getKafkaTopic())
+                .setHeader(KafkaHeaders.KEY, serviceName)
+                .setHeader("type", "INFO")
+                .setHeader("logType", "HTTP_REQUEST")
+                .setHeader("errorTimestamp", Instant.now().toString())
+                .build();
+
+        // Отправка в фоне; при недоступности Kafka сообщение уходит в spool,
+        // колбэк вызывается, только если и spool не смог его принять
+        logShipper.submit(message, failure -> {
+            logger.warn("Kafka send failed for incoming HTTP log: {}", failure.getMessage());
+            if (properties.isFallbackToDatabase()) {
+                handleDatabaseFallback(logMessage, failure.getMessage());
+            }
+        });
     }
 
     /**
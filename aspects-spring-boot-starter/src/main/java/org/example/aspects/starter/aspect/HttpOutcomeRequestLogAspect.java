@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.aspects.starter.annotation.HttpOutcomeRequestLog;
 import org.example.aspects.starter.config.AspectsProperties;
 import org.example.aspects.starter.dto.OutgoingHttpLogMessage;
+import org.example.aspects.starter.shipper.KafkaLogShipper;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.AfterReturning;
 import org.aspectj.lang.annotation.Aspect;
@@ -14,7 +15,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.support.MessageBuilder;
 
@@ -22,7 +22,6 @@ import java.net.URI;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 @Aspect
 public class HttpOutcomeRequestLogAspect {
@@ -30,16 +29,16 @@ public class HttpOutcomeRequestLogAspect {
     private static final Logger logger = LoggerFactory.getLogger(HttpOutcomeRequestLogAspect.class);
 
     private final AspectsProperties.HttpRequest properties;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaLogShipper logShipper;
     private final ObjectMapper objectMapper;
     private String serviceName;
 
     public HttpOutcomeRequestLogAspect(AspectsProperties.HttpRequest properties,
-                                       KafkaTemplate<String, Object> kafkaTemplate,
+                                       KafkaLogShipper logShipper,
                                        ObjectMapper objectMapper,
                                        @Value("${spring.application.name:unknown-service}") String serviceName) {
         this.properties = properties;
-        this.kafkaTemplate = kafkaTemplate;
+        this.logShipper = logShipper;
         this.objectMapper = objectMapper;
         this.serviceName = serviceName;
 
@@ -62,11 +61,10 @@ public class HttpOutcomeRequestLogAspect {
 
             OutgoingHttpLogMessage logMessage = createOutgoingLogMessage(joinPoint, result);
 
-            boolean kafkaSuccess = sendToKafka(logMessage);
-
-            if (!kafkaSuccess && properties.isFallbackToDatabase()) {
-                logger.info("Kafka failed for outgoing HTTP log - would save to database");
-                handleDatabaseFallback(logMessage, "Kafka unavailable");
+            if (properties.isKafkaEnabled()) {
+                enqueueToKafka(logMessage);
+            } else if (properties.isFallbackToDatabase()) {
+                handleDatabaseFallback(logMessage, "Kafka disabled in configuration");
             }
 
         } catch (Exception e) {
@@ -136,38 +134,26 @@ public class HttpOutcomeRequestLogAspect {
         }
     }
 
-    private boolean sendToKafka(OutgoingHttpLogMessage logMessage) {
-        if (!properties.isKafkaEnabled()) {
-            logger.debug("Kafka disabled in configuration for outgoing HTTP request logging");
-            return false;
-        }
-
-        try {
-            logger.debug("Sending outgoing HTTP request log to Kafka topic: {}", properties.getKafkaTopic());
-
-            // Преобразуем в JSON строку
-            String jsonPayload = objectMapper.writeValueAsString(logMessage);
-
-            var message = MessageBuilder
-                    .withPayload(jsonPayload) // ← Отправляем как строку
-                    .setHeader(KafkaHeaders.TOPIC, properties.getKafkaTopic())
-                    .setHeader(KafkaHeaders.KEY, serviceName)
-                    .setHeader("type", "INFO")
-                    .setHeader("logType", "HTTP_OUTGOING_REQUEST")
-                    .build();
-
-            var result = kafkaTemplate.send(message).get(5, TimeUnit.SECONDS);
-
-            logger.info("Outgoing HTTP log sent successfully to Kafka. Topic: {}, Partition: {}, Offset: {}",
-                    result.getRecordMetadata().topic(),
-                    result.getRecordMetadata().partition(),
-                    result.getRecordMetadata().offset());
-            return true;
-
-        } catch (Exception e) {
-            logger.error("Kafka send failed for outgoing HTTP log: {}", e.getMessage());
-            return false;
-        }
+    private void enqueueToKafka(OutgoingHttpLogMessage logMessage) throws Exception {
+        // Преобразуем в JSON строку
+        String jsonPayload = objectMapper.writeValueAsString(logMessage);
+
+        var message = MessageBuilder
+                .withPayload(jsonPayload) // ← Отправляем как строку
+                .setHeader(KafkaHeaders.TOPIC, properties.getKafkaTopic())
+                .setHeader(KafkaHeaders.KEY, serviceName)
+                .setHeader("type", "INFO")
+                .setHeader("logType", "HTTP_OUTGOING_REQUEST")
+                .build();
+
+        // Отправка в фоне; при недоступности Kafka сообщение уходит в spool,
+        // колбэк вызывается, только если и spool не смог его принять
+        logShipper.submit(message, failure -> {
+            logger.warn("Kafka send failed for outgoing HTTP log: {}", failure.getMessage());
+            if (properties.isFallbackToDatabase()) {
+                handleDatabaseFallback(logMessage, failure.getMessage());
+            }
+        });
     }
 
     /**
@@ -5,6 +5,7 @@ import jakarta.annotation.PostConstruct;
 import org.example.aspects.starter.annotation.LogDatasourceError;
 import org.example.aspects.starter.config.AspectsProperties;
 import org.example.aspects.starter.dto.ErrorLogMessage;
+import org.example.aspects.starter.shipper.KafkaLogShipper;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.AfterThrowing;
 import org.aspectj.lang.annotation.Aspect;
@@ -13,7 +14,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
@@ -23,8 +23,7 @@ import java.io.StringWriter;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @Aspect
 public class LogDatasourceErrorAspect {
@@ -32,17 +31,17 @@ public class LogDatasourceErrorAspect {
     private static final Logger logger = LoggerFactory.getLogger(LogDatasourceErrorAspect.class);
 
     private final AspectsProperties.Datasource properties;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaLogShipper logShipper;
     private final ObjectMapper objectMapper;
     private String serviceName;
 
     // В LogDatasourceErrorAspect (стартер)
     public LogDatasourceErrorAspect(AspectsProperties.Datasource properties,
-                                    KafkaTemplate<String, Object> kafkaTemplate,
+                                    KafkaLogShipper logShipper,
                                     ObjectMapper objectMapper,
                                     @Value("${spring.application.name:unknown-service}") String serviceName) {
         this.properties = properties;
-        this.kafkaTemplate = kafkaTemplate;
+        this.logShipper = logShipper;
         this.objectMapper = objectMapper;
         this.serviceName = serviceName;
     }
@@ -59,20 +58,8 @@ public class LogDatasourceErrorAspect {
     )
     public void logDataSourceError(JoinPoint joinPoint, LogDatasourceError logDatasourceError, Throwable ex) {
 
-        // ДОБАВИТЬ: проверка на дублирование вызовов
-        String methodSignature = joinPoint.getSignature().toShortString();
-        String exceptionMsg = ex.getMessage();
-        String uniqueKey = methodSignature + ":" + exceptionMsg + ":" + Instant.now().getEpochSecond();
-
-        logger.info("=== ASPECT TRIGGERED ===");
-        logger.info("Method: {}, Exception: {}", methodSignature, exceptionMsg);
-        logger.info("Aspect enabled: {}, Kafka enabled: {}, Fallback enabled: {}",
-                properties.isEnabled(),
-                properties.isKafkaEnabled(),
-                properties.isFallbackToDatabase());
-
         if (!properties.isEnabled()) {
-            logger.info("Aspect disabled in configuration - skipping");
+            logger.debug("Aspect disabled in configuration - skipping");
             return;
         }
 
@@ -87,18 +74,11 @@ public class LogDatasourceErrorAspect {
             // Создаем сообщение для Kafka
             ErrorLogMessage errorMessage = createErrorMessage(joinPoint, ex, logDatasourceError.level());
 
-            // Пытаемся отправить в Kafka
-            boolean kafkaSuccess = sendToKafka(errorMessage, logDatasourceError.level());
-
-            logger.info("Kafka send result: {}, Fallback enabled: {}",
-                    kafkaSuccess, properties.isFallbackToDatabase());
-
-            if (!kafkaSuccess && properties.isFallbackToDatabase()) {
-                logger.info("Kafka failed and fallback enabled - writing to database");
-                String kafkaError = "Kafka unavailable or send failed";
-                handleDatabaseFallback(errorMessage, logDatasourceError.level(), kafkaError);
-            } else if (!kafkaSuccess) {
-                logger.info("Kafka failed but fallback disabled - skipping database write");
+            // Ставим в очередь на отправку в Kafka; БД используется только при отказе доставки
+            if (properties.isKafkaEnabled()) {
+                enqueueToKafka(errorMessage, logDatasourceError.level());
+            } else if (properties.isFallbackToDatabase()) {
+                handleDatabaseFallback(errorMessage, logDatasourceError.level(), "Kafka disabled in configuration");
             }
 
             // Всегда логируем в консоль
@@ -110,46 +90,29 @@ public class LogDatasourceErrorAspect {
         }
     }
 
-    private boolean sendToKafka(ErrorLogMessage errorMessage, LogDatasourceError.LogLevel level) {
-        logger.info("=== KAFKA SEND ATTEMPT ===");
-        logger.info("Kafka enabled: {}, Topic: {}, Fallback to DB: {}",
-                properties.isKafkaEnabled(),
-                properties.getKafkaTopic(),
-                properties.isFallbackToDatabase());
-
-        if (!properties.isKafkaEnabled()) {
-            logger.info("Kafka disabled in configuration - skipping Kafka send");
-            return false;
-        }
-
-        try {
-            logger.info("Attempting to send message to Kafka topic: {}", properties.getKafkaTopic());
-            logger.info("Message payload: {}", objectMapper.writeValueAsString(errorMessage));
-
-            var message = MessageBuilder
-                    .withPayload(errorMessage)
-                    .setHeader(KafkaHeaders.TOPIC, properties.getKafkaTopic())
-                    .setHeader(KafkaHeaders.KEY, serviceName)
-                    .setHeader("type", level.name())
-                    .setHeader("errorType", "DATASOURCE_ERROR")
-                    // УДАЛИТЬ этот заголовок - он зарезервирован!
-                    // .setHeader("timestamp", Instant.now().toString())
-                    .setHeader("errorTimestamp", Instant.now().toString()) // Использовать другое имя
-                    .build();
-
-            // Синхронная отправка для надежности
-            var result = kafkaTemplate.send(message).get(5, TimeUnit.SECONDS);
-
-            logger.info("Datasource error log sent successfully to Kafka. Topic: {}, Partition: {}, Offset: {}",
-                    result.getRecordMetadata().topic(),
-                    result.getRecordMetadata().partition(),
-                    result.getRecordMetadata().offset());
-            return true;
+    private void enqueueToKafka(ErrorLogMessage errorMessage, LogDatasourceError.LogLevel level) {
+        var message = MessageBuilder
+                .withPayload(errorMessage)
+                .setHeader(KafkaHeaders.TOPIC, properties.getKafkaTopic())
+                .setHeader(KafkaHeaders.KEY, serviceName)
+                .setHeader("type", level.name())
+                .setHeader("errorType", "DATASOURCE_ERROR")
+                // заголовок timestamp зарезервирован
+                .setHeader("errorTimestamp", Instant.now().toString())
+                .build();
+
+        // Вызывается в потоке отправки, если Kafka не подтвердила доставку и сообщение не удалось
+        // сохранить в локальный spool, или при вытеснении сообщения из переполненной очереди
+        Consumer<Throwable> onFailure = failure -> {
+            logger.warn("Kafka send failed for datasource error: {}", failure.getMessage());
+            if (properties.isFallbackToDatabase()) {
+                handleDatabaseFallback(errorMessage, level, failure.getMessage());
+            }
+        };
 
-        } catch (Exception e) {
-            logger.error("Kafka send failed for datasource error: {}", e.getMessage());
-            logger.error("Kafka exception details:", e);
-            return false;
+        // Очередь переполнена и сообщение не принято - ошибки источника данных не теряем, пишем в БД
+        if (!logShipper.submit(message, onFailure)) {
+            onFailure.accept(new IllegalStateException("Log shipper queue is full"));
         }
     }
 
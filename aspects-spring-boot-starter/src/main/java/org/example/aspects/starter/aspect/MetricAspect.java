@@ -1,9 +1,13 @@
 package org.example.aspects.starter.aspect;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.example.aspects.starter.annotation.Metric;
 import org.example.aspects.starter.config.AspectsProperties;
-import org.example.aspects.starter.dto.MetricLogMessage;
+import org.example.aspects.starter.dto.MetricSnapshotMessage;
+import org.example.aspects.starter.metric.LatencySnapshot;
+import org.example.aspects.starter.metric.MetricWindows;
+import org.example.aspects.starter.shipper.KafkaLogShipper;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
@@ -11,33 +15,69 @@ import org.aspectj.lang.annotation.Pointcut;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.support.MessageBuilder;
-import org.springframework.stereotype.Component;
 
 import java.time.Instant;
-import java.util.Arrays;
-import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.StringJoiner;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Aspect
 public class MetricAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(MetricAspect.class);
 
+    // Максимальная длина значения аргумента в отпечатке медленного вызова
+    private static final int MAX_ARGUMENT_LENGTH = 64;
+
     private final AspectsProperties.Metric properties;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final KafkaLogShipper logShipper;
     private String serviceName;
 
+    // Окна агрегации по имени метрики: задержки (наносекунды), ошибки, самые медленные вызовы
+    private final MetricWindows metricWindows;
+
+    // Планировщик публикации снимков
+    private ScheduledExecutorService publishScheduler;
+
     // Конструктор для Autoconfiguration
     public MetricAspect(AspectsProperties.Metric properties,
-                        KafkaTemplate<String, Object> kafkaTemplate,
-                        ObjectMapper objectMapper) {
+                        KafkaLogShipper logShipper) {
         this.properties = properties;
-        this.kafkaTemplate = kafkaTemplate;
-        this.objectMapper = objectMapper;
+        this.logShipper = logShipper;
+        this.metricWindows = new MetricWindows(properties.getTopSlowCalls());
+    }
+
+    @PostConstruct
+    public void init() {
+        if (properties.isEnabled()) {
+            this.publishScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "metric-aspect-publisher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            publishScheduler.scheduleAtFixedRate(
+                    this::publishSnapshots,
+                    properties.getPublishInterval(),
+                    properties.getPublishInterval(),
+                    TimeUnit.SECONDS
+            );
+            logger.info("MetricAspect initialized with publish interval: {} sec, execution time limit: {} ms",
+                    properties.getPublishInterval(), properties.getExecutionTimeLimit());
+        } else {
+            logger.info("MetricAspect is disabled");
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (publishScheduler != null) {
+            publishScheduler.shutdown();
+            // Публикуем то, что накопилось с последнего интервала
+            publishSnapshots();
+        }
     }
 
     @Pointcut("@annotation(org.example.aspects.starter.annotation.Metric)")
@@ -50,131 +90,116 @@ public class MetricAspect {
             return joinPoint.proceed();
         }
 
-        long startTime = System.currentTimeMillis();
-        String methodSignature = joinPoint.getSignature().toShortString();
-        String metricName = metric.value().isEmpty() ? methodSignature : metric.value();
+        long startTime = System.nanoTime();
+        boolean failed = false;
 
         try {
-            logger.debug("Starting metric measurement for method: {}", methodSignature);
-
             // Выполняем оригинальный метод
-            Object result = joinPoint.proceed();
-
-            long executionTime = System.currentTimeMillis() - startTime;
-
-            // Логируем время выполнения
-            logExecutionTime(methodSignature, executionTime, metricName);
+            return joinPoint.proceed();
+        } catch (Throwable throwable) {
+            failed = true;
+            throw throwable;
+        } finally {
+            long executionTimeNanos = System.nanoTime() - startTime;
+            String metricName = getMetricName(joinPoint, metric);
+            metricWindows.record(metricName, executionTimeNanos, failed);
 
-            // Проверяем превышение лимита
+            // Медленный вызов попадает в top-N окна вместе с отпечатком аргументов
+            long executionTime = TimeUnit.NANOSECONDS.toMillis(executionTimeNanos);
             if (executionTime > properties.getExecutionTimeLimit()) {
-                handleSlowExecution(joinPoint, methodSignature, executionTime, metricName);
+                metricWindows.recordSlowCall(metricName, fingerprint(joinPoint.getArgs()), executionTime);
             }
-
-            return result;
-
-        } catch (Throwable throwable) {
-            long executionTime = System.currentTimeMillis() - startTime;
-            logger.warn("Method {} failed after {} ms", methodSignature, executionTime);
-            throw throwable;
         }
     }
 
-    private void logExecutionTime(String methodSignature, long executionTime, String metricName) {
-        // Всегда логируем для отладки
-        logger.info("METRIC [{}] - Method: {}, Execution time: {} ms, Limit: {} ms",
-                metricName, methodSignature, executionTime, properties.getExecutionTimeLimit());
+    private String getMetricName(ProceedingJoinPoint joinPoint, Metric metric) {
+        return metric.value().isEmpty() ? joinPoint.getSignature().toShortString() : metric.value();
+    }
 
-        if (executionTime > properties.getExecutionTimeLimit()) {
-            logger.warn("EXCEEDED LIMIT - Method: {} took {} ms (limit: {} ms)",
-                    methodSignature, executionTime, properties.getExecutionTimeLimit());
+    /**
+     * Короткий отпечаток аргументов: скалярные значения как есть (с обрезкой), объекты - по имени класса
+     */
+    private String fingerprint(Object[] args) {
+        StringJoiner joiner = new StringJoiner(", ", "(", ")");
+        for (Object arg : args) {
+            if (arg == null) {
+                joiner.add("null");
+            } else if (arg instanceof CharSequence || arg instanceof Number
+                    || arg instanceof Boolean || arg instanceof Enum<?>) {
+                String value = arg.toString();
+                joiner.add(value.length() > MAX_ARGUMENT_LENGTH ? value.substring(0, MAX_ARGUMENT_LENGTH) + "..." : value);
+            } else {
+                joiner.add(arg.getClass().getSimpleName());
+            }
         }
+        return joiner.toString();
     }
 
-    private void handleSlowExecution(ProceedingJoinPoint joinPoint, String methodSignature,
-                                     long executionTime, String metricName) {
+    private void publishSnapshots() {
         try {
-            logger.warn("SLOW EXECUTION DETECTED - Method: {}, Time: {} ms, Limit: {} ms",
-                    methodSignature, executionTime, properties.getExecutionTimeLimit());
-
-            MetricLogMessage metricMessage = createMetricMessage(joinPoint, methodSignature, executionTime, metricName);
-            sendMetricWarningToKafka(metricMessage);
-
+            for (MetricWindows.WindowSnapshot window : metricWindows.drain()) {
+                MetricSnapshotMessage snapshot = createSnapshotMessage(window);
+                if (properties.isKafkaEnabled()) {
+                    sendSnapshotToKafka(snapshot);
+                } else {
+                    logger.info("METRIC [{}] - count: {}, errors: {}, p50: {} us, p99: {} us, p999: {} us, max: {} us",
+                            snapshot.getMetricName(), snapshot.getCount(), snapshot.getErrorCount(),
+                            snapshot.getP50Micros(), snapshot.getP99Micros(),
+                            snapshot.getP999Micros(), snapshot.getMaxMicros());
+                }
+            }
         } catch (Exception e) {
-            logger.error("Failed to process slow execution metric for method: {}", methodSignature, e);
+            logger.error("Failed to publish metric snapshots: {}", e.getMessage());
         }
     }
 
-    private MetricLogMessage createMetricMessage(ProceedingJoinPoint joinPoint, String methodSignature,
-                                                 long executionTime, String metricName) {
-        MetricLogMessage message = new MetricLogMessage();
-        message.setTimestamp(Instant.now());
+    private MetricSnapshotMessage createSnapshotMessage(MetricWindows.WindowSnapshot window) {
+        LatencySnapshot latency = LatencySnapshot.of(window.metricName(), window.latency());
+
+        MetricSnapshotMessage message = new MetricSnapshotMessage();
+        message.setWindowStart(window.windowStart());
+        message.setWindowEnd(window.windowEnd());
         message.setServiceName(serviceName);
-        message.setMethodSignature(methodSignature);
-        message.setExecutionTimeMs(executionTime);
-        message.setInputParameters(getInputParameters(joinPoint));
-        message.setMetricName(metricName);
-        message.setWarningReason(String.format("Execution time %d ms exceeds limit %d ms",
-                executionTime, properties.getExecutionTimeLimit()));
+        message.setMetricName(window.metricName());
+        message.setCount(latency.count());
+        message.setErrorCount(window.errorCount());
+        message.setP50Micros(latency.p50Micros());
+        message.setP99Micros(latency.p99Micros());
+        message.setP999Micros(latency.p999Micros());
+        message.setMaxMicros(latency.maxMicros());
+        message.setExecutionTimeLimitMs(properties.getExecutionTimeLimit());
+        message.setTopSlowCalls(window.slowCalls().stream()
+                .map(slowCall -> {
+                    MetricSnapshotMessage.SlowCall call = new MetricSnapshotMessage.SlowCall();
+                    call.setArguments(slowCall.fingerprint());
+                    call.setExecutionTimeMs(slowCall.executionTimeMs());
+                    return call;
+                })
+                .toList());
         return message;
     }
 
-    private void sendMetricWarningToKafka(MetricLogMessage metricMessage) {
-        if (!properties.isKafkaEnabled()) {
-            logger.debug("Kafka disabled in config, skipping metric warning send");
-            return;
-        }
-
-        try {
-            logger.info("Sending metric warning to Kafka topic: {}", properties.getKafkaTopic());
-
-            var message = MessageBuilder
-                    .withPayload(metricMessage)
-                    .setHeader(KafkaHeaders.TOPIC, properties.getKafkaTopic())
-                    .setHeader(KafkaHeaders.KEY, serviceName)
-                    .setHeader("type", "WARNING")
-                    .setHeader("metricType", "SLOW_EXECUTION")
-                    .setHeader("timestamp", Instant.now().toString())
-                    .build();
-
-            kafkaTemplate.send(message)
-                    .whenComplete((result, exception) -> {
-                        if (exception != null) {
-                            logger.error("Kafka send failed for metric warning: {}", exception.getMessage());
-                        } else {
-                            logger.info("Metric warning sent successfully to Kafka. Topic: {}, Partition: {}, Offset: {}",
-                                    result.getRecordMetadata().topic(),
-                                    result.getRecordMetadata().partition(),
-                                    result.getRecordMetadata().offset());
-                        }
-                    });
-
-        } catch (Exception e) {
-            logger.error("Error preparing Kafka message for metric warning: {}", e.getMessage());
-        }
+    private void sendSnapshotToKafka(MetricSnapshotMessage snapshot) {
+        var message = MessageBuilder
+                .withPayload(snapshot)
+                .setHeader(KafkaHeaders.TOPIC, properties.getKafkaTopic())
+                .setHeader(KafkaHeaders.KEY, serviceName)
+                .setHeader("type", snapshot.getTopSlowCalls().isEmpty() ? "INFO" : "WARNING")
+                .setHeader("metricType", "SNAPSHOT")
+                .setHeader("timestamp", Instant.now().toString())
+                .build();
+
+        // При недоступности Kafka снимок уходит в spool и будет дослан позже
+        logShipper.submit(message, failure -> logger.warn("Metric snapshot {} was not delivered: {}",
+                snapshot.getMetricName(), failure.getMessage()));
     }
 
-    private List<Object> getInputParameters(ProceedingJoinPoint joinPoint) {
-        return Arrays.stream(joinPoint.getArgs())
-                .map(this::safeSerialize)
-                .toList();
-    }
-
-    private Object safeSerialize(Object obj) {
-        try {
-            if (obj == null) {
-                return "null";
-            }
-            if (obj instanceof String || obj instanceof Number || obj instanceof Boolean) {
-                return obj;
-            }
-            return objectMapper.convertValue(obj, Object.class);
-        } catch (Exception e) {
-            return obj != null ? obj.toString() : "null";
-        }
+    public MetricWindows getMetricWindows() {
+        return metricWindows;
     }
 
     @Autowired
     public void setServiceName(@org.springframework.beans.factory.annotation.Value("${spring.application.name:unknown-service}") String serviceName) {
         this.serviceName = serviceName;
     }
-}
\ No newline at end of file
+}
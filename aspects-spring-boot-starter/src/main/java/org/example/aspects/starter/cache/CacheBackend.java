@@ -0,0 +1,47 @@
+package org.example.aspects.starter.cache;
+
+import org.example.aspects.starter.dto.CacheEntry;
+
+import java.util.Map;
+
+/**
+ * SPI хранилища для {@link org.example.aspects.starter.aspect.CachedAspect}.
+ * Реализация отвечает за хранение записей по именованным кэшам, их вытеснение и истечение TTL.
+ * Чтобы подключить свою реализацию, достаточно объявить бин этого типа;
+ * вытеснения и истечения она может отражать в бине {@link CacheStatistics}.
+ */
+public interface CacheBackend {
+
+    /**
+     * Возвращает актуальную (не истекшую) запись или null
+     */
+    CacheEntry get(String cacheName, Object key);
+
+    /**
+     * Сохраняет запись. maximumSize применяется при первом обращении к кэшу с данным именем;
+     * реализации без ограничения размера могут его игнорировать.
+     */
+    void put(String cacheName, Object key, CacheEntry entry, long maximumSize);
+
+    void evict(String cacheName, Object key);
+
+    /**
+     * Удаляет кэш целиком; возвращает false, если такого кэша не было
+     */
+    boolean clear(String cacheName);
+
+    /**
+     * Удаляет все кэши; возвращает количество удаленных кэшей
+     */
+    int clearAll();
+
+    /**
+     * Количество записей по каждому кэшу
+     */
+    Map<String, Integer> sizes();
+
+    /**
+     * Удаляет просроченные записи; возвращает количество удаленных (если реализация его знает)
+     */
+    int cleanupExpired();
+}
@@ -0,0 +1,13 @@
+package org.example.aspects.starter.cache;
+
+import org.example.aspects.starter.config.AspectsProperties;
+
+/**
+ * Создает {@link CacheBackend} по настройкам aspects.cache.
+ * Реализация по умолчанию - {@link DefaultCacheBackendFactory}; свою можно подключить, объявив бин этого типа.
+ */
+@FunctionalInterface
+public interface CacheBackendFactory {
+
+    CacheBackend create(AspectsProperties.Cache properties, CacheStatistics statistics);
+}
@@ -0,0 +1,62 @@
+package org.example.aspects.starter.cache;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint /actuator/aspectcaches: список кэшей @Cached со статистикой,
+ * просмотр отдельного кэша и очистка.
+ */
+@Endpoint(id = "aspectcaches")
+public class CacheEndpoint {
+
+    private final CacheStatistics statistics;
+    private final CacheBackend backend;
+
+    public CacheEndpoint(CacheStatistics statistics, CacheBackend backend) {
+        this.statistics = statistics;
+        this.backend = backend;
+    }
+
+    @ReadOperation
+    public Map<String, CacheView> caches() {
+        Map<String, Integer> sizes = backend.sizes();
+        Map<String, CacheView> caches = new TreeMap<>();
+        statistics.getAll().forEach((cacheName, counters) ->
+                caches.put(cacheName, new CacheView(sizes.getOrDefault(cacheName, 0), counters.snapshot())));
+        sizes.forEach((cacheName, size) ->
+                caches.computeIfAbsent(cacheName, name -> new CacheView(size, statistics.forCache(name).snapshot())));
+        return caches;
+    }
+
+    @ReadOperation
+    public CacheView cache(@Selector String cacheName) {
+        CacheStatistics.Counters counters = statistics.getAll().get(cacheName);
+        Integer size = backend.sizes().get(cacheName);
+        if (counters == null && size == null) {
+            return null;
+        }
+        CacheStatistics.Snapshot snapshot = counters != null
+                ? counters.snapshot()
+                : statistics.forCache(cacheName).snapshot();
+        return new CacheView(size != null ? size : 0, snapshot);
+    }
+
+    @DeleteOperation
+    public void clearAll() {
+        backend.clearAll();
+    }
+
+    @DeleteOperation
+    public void clear(@Selector String cacheName) {
+        backend.clear(cacheName);
+    }
+
+    public record CacheView(int size, CacheStatistics.Snapshot statistics) {
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.aspects.starter.cache;
+
+import java.util.Arrays;
+
+/**
+ * Составной ключ кэша для методов с несколькими аргументами.
+ * Сравнение идет по всем аргументам, поэтому совпадение хэшей не приводит к чужому попаданию.
+ */
+public final class CacheKey {
+
+    public static final CacheKey EMPTY = new CacheKey(new Object[0]);
+    public static final CacheKey NULL = new CacheKey(new Object[]{null});
+
+    private final Object[] params;
+    private final int hashCode;
+
+    public CacheKey(Object... params) {
+        this.params = params;
+        this.hashCode = Arrays.deepHashCode(params);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof CacheKey that
+                && hashCode == that.hashCode
+                && Arrays.deepEquals(params, that.params);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.deepToString(params);
+    }
+}
@@ -0,0 +1,213 @@
+package org.example.aspects.starter.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Строит ключи кэша по аргументам метода.
+ * Способ построения ключа определяется один раз на Method и переиспользуется,
+ * поэтому в горячем пути нет поиска полей через reflection.
+ * Скалярные ключи (числа, строки) приводятся к строке, чтобы Long id сущности
+ * и String id из сообщения указывали на одну и ту же запись; числа - в каноническом виде
+ * (Integer 1, Long 1 и BigDecimal 1.00 дают один ключ). Аргументы методов с несколькими
+ * параметрами приводятся по тем же правилам, что и единственный аргумент.
+ */
+public class CacheKeyGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheKeyGenerator.class);
+
+    private static final String ID_PROPERTY = "id";
+
+    private final Map<Method, KeyExtractor> extractors = new ConcurrentHashMap<>();
+    private final Map<CacheKey, KeyExtractor> propertyExtractors = new ConcurrentHashMap<>();
+    private final Map<CacheKey, KeyExtractor> paramExtractors = new ConcurrentHashMap<>();
+
+    @FunctionalInterface
+    public interface KeyExtractor {
+        Object extract(Object[] args);
+    }
+
+    public Object generate(Method method, Object[] args) {
+        Object key = extractors.computeIfAbsent(method, this::resolve).extract(args);
+        return key != null ? key : CacheKey.NULL;
+    }
+
+    /**
+     * Ключ по одному аргументу метода - такой же, как у метода с единственным аргументом этого типа.
+     * Позволяет методу записи с несколькими аргументами попасть в ключ метода чтения по id.
+     */
+    public Object generate(Method method, int paramIndex, Object[] args) {
+        Object key = paramExtractors
+                .computeIfAbsent(new CacheKey(method, paramIndex), k -> resolveParam(method, paramIndex))
+                .extract(args);
+        return key != null ? key : CacheKey.NULL;
+    }
+
+    /**
+     * Ключ для сущности: значение ее поля id (например, для ключа по возвращенному результату)
+     */
+    public Object keyOf(Object value) {
+        return propertyOf(value, ID_PROPERTY);
+    }
+
+    /**
+     * Ключ по значению указанного поля объекта
+     */
+    public Object propertyOf(Object value, String property) {
+        if (value == null) {
+            return CacheKey.NULL;
+        }
+        Object key = propertyExtractors
+                .computeIfAbsent(new CacheKey(value.getClass(), property),
+                        k -> resolveProperty(value.getClass(), property))
+                .extract(new Object[]{value});
+        return key != null ? key : CacheKey.NULL;
+    }
+
+    private KeyExtractor resolve(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+
+        if (parameterTypes.length == 0) {
+            return args -> CacheKey.EMPTY;
+        }
+
+        if (parameterTypes.length == 1) {
+            ValueKey single = resolveForType(parameterTypes[0]);
+            return args -> single.of(args[0]);
+        }
+
+        // Несколько аргументов - составной ключ с полноценным equals;
+        // каждый аргумент приводится так же, как единственный аргумент его типа
+        ValueKey[] parameterKeys = new ValueKey[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterKeys[i] = resolveForType(parameterTypes[i]);
+        }
+        return args -> {
+            Object[] values = new Object[parameterKeys.length];
+            for (int i = 0; i < parameterKeys.length; i++) {
+                values[i] = parameterKeys[i].of(args[i]);
+            }
+            return new CacheKey(values);
+        };
+    }
+
+    private KeyExtractor resolveParam(Method method, int paramIndex) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (paramIndex >= parameterTypes.length) {
+            throw new IllegalArgumentException("keyParam " + paramIndex + " is out of range for "
+                    + method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        }
+        ValueKey single = resolveForType(parameterTypes[paramIndex]);
+        return args -> single.of(args[paramIndex]);
+    }
+
+    /**
+     * Ключ для одного аргумента объявленного типа
+     */
+    @FunctionalInterface
+    private interface ValueKey {
+        Object of(Object value);
+    }
+
+    private ValueKey resolveForType(Class<?> type) {
+        // Примитивы, строки и прочие значения с собственным equals - используем как есть
+        if (isValueType(type)) {
+            return this::normalize;
+        }
+
+        // Если у объекта есть поле id - ключом является его значение
+        MethodHandle idGetter = findFieldGetter(type, ID_PROPERTY);
+        if (idGetter != null) {
+            return arg -> {
+                if (arg == null) {
+                    return null;
+                }
+                Object idValue = invoke(idGetter, arg);
+                return idValue != null ? normalize(idValue) : arg;
+            };
+        }
+
+        // Объявленный тип не говорит о значении (например, Object) - скаляры приводим по фактическому типу
+        return this::normalize;
+    }
+
+    private KeyExtractor resolveProperty(Class<?> type, String property) {
+        MethodHandle getter = findFieldGetter(type, property);
+        if (getter == null) {
+            logger.warn("No '{}' field found in {}, cache key cannot be derived", property, type.getSimpleName());
+            return args -> null;
+        }
+        return args -> normalize(invoke(getter, args[0]));
+    }
+
+    private Object invoke(MethodHandle getter, Object target) {
+        try {
+            return getter.invoke(target);
+        } catch (Throwable e) {
+            logger.trace("Cannot read cache key field from {}", target.getClass().getSimpleName());
+            return null;
+        }
+    }
+
+    private Object normalize(Object value) {
+        if (value instanceof Number number) {
+            return normalizeNumber(number);
+        }
+        if (value instanceof CharSequence || value instanceof Character) {
+            return value.toString();
+        }
+        return value;
+    }
+
+    /**
+     * Каноническая запись числа: без дробной части у целых и без хвостовых нулей у дробных
+     */
+    private String normalizeNumber(Number number) {
+        if (number instanceof BigDecimal decimal) {
+            return decimal.signum() == 0 ? "0" : decimal.stripTrailingZeros().toPlainString();
+        }
+        if (number instanceof Double || number instanceof Float) {
+            double value = number.doubleValue();
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                return number.toString();
+            }
+            return normalizeNumber(BigDecimal.valueOf(value));
+        }
+        return number.toString();
+    }
+
+    private boolean isValueType(Class<?> type) {
+        return type.isPrimitive()
+                || type.isEnum()
+                || CharSequence.class.isAssignableFrom(type)
+                || Number.class.isAssignableFrom(type)
+                || Boolean.class == type
+                || Character.class == type
+                || type.isRecord();
+    }
+
+    private MethodHandle findFieldGetter(Class<?> type, String name) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            try {
+                Field field = current.getDeclaredField(name);
+                field.setAccessible(true);
+                return MethodHandles.lookup().unreflectGetter(field);
+            } catch (NoSuchFieldException e) {
+                // ищем в родительском классе
+            } catch (Exception e) {
+                logger.trace("Cannot access '{}' field in {}", name, type.getSimpleName());
+                return null;
+            }
+        }
+        logger.trace("No '{}' field found in {}, using argument equals/hashCode", name, type.getSimpleName());
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.aspects.starter.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Публикует счетчики {@link CacheStatistics} как метрики Micrometer.
+ * Кэши @Cached создаются лениво, поэтому метрики регистрируются при появлении каждого кэша.
+ */
+public class CacheMetricsBinder implements MeterBinder {
+
+    private final CacheStatistics statistics;
+    private final CacheBackend backend;
+
+    public CacheMetricsBinder(CacheStatistics statistics, CacheBackend backend) {
+        this.statistics = statistics;
+        this.backend = backend;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        statistics.onNewCache((cacheName, counters) -> register(registry, cacheName, counters));
+    }
+
+    private void register(MeterRegistry registry, String cacheName, CacheStatistics.Counters counters) {
+        Tags tags = Tags.of("cache", cacheName, "cache.manager", "aspects");
+
+        FunctionCounter.builder("cache.gets", counters, CacheStatistics.Counters::getHits)
+                .tags(tags).tag("result", "hit")
+                .description("Количество попаданий в кэш")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", counters, CacheStatistics.Counters::getMisses)
+                .tags(tags).tag("result", "miss")
+                .description("Количество промахов кэша")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", counters, CacheStatistics.Counters::getEvictions)
+                .tags(tags)
+                .description("Записи, вытесненные из-за ограничения размера")
+                .register(registry);
+        FunctionCounter.builder("cache.expirations", counters, CacheStatistics.Counters::getExpirations)
+                .tags(tags)
+                .description("Записи, удаленные по истечении TTL")
+                .register(registry);
+        FunctionCounter.builder("cache.loads", counters, CacheStatistics.Counters::getLoadSuccesses)
+                .tags(tags).tag("result", "success")
+                .description("Успешные вызовы метода при промахе кэша")
+                .register(registry);
+        FunctionCounter.builder("cache.loads", counters, CacheStatistics.Counters::getLoadFailures)
+                .tags(tags).tag("result", "failure")
+                .description("Вызовы метода при промахе кэша, завершившиеся исключением")
+                .register(registry);
+        FunctionTimer.builder("cache.load.duration", counters,
+                        c -> c.getLoadSuccesses() + c.getLoadFailures(),
+                        CacheStatistics.Counters::getTotalLoadTimeNanos,
+                        TimeUnit.NANOSECONDS)
+                .tags(tags)
+                .description("Время выполнения метода при промахе кэша")
+                .register(registry);
+        Gauge.builder("cache.size", backend, b -> b.sizes().getOrDefault(cacheName, 0))
+                .tags(tags)
+                .description("Количество записей в кэше")
+                .register(registry);
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.aspects.starter.cache;
+
+import org.example.aspects.starter.annotation.Cached;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Размеры кэшей, заданные в @Cached(maximumSize), по имени кэша.
+ * Заполняется при создании бинов, поэтому размер кэша не зависит от того,
+ * какой метод (@Cached, @CachedPut или @CachedEvict) первым обратится к нему.
+ */
+public class CacheSizeRegistry implements BeanPostProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheSizeRegistry.class);
+
+    private final Map<String, Long> annotatedSizes = new ConcurrentHashMap<>();
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Class<?> targetClass = AopUtils.getTargetClass(bean);
+        ReflectionUtils.doWithMethods(targetClass, method -> {
+            Cached cached = method.getAnnotation(Cached.class);
+            if (cached != null) {
+                register(cacheName(cached, method), cached.maximumSize());
+            }
+        });
+        return bean;
+    }
+
+    /**
+     * Запоминает размер из аннотации; при разных значениях для одного кэша остается наибольшее
+     */
+    public void register(String cacheName, long maximumSize) {
+        if (maximumSize <= 0) {
+            return;
+        }
+        Long previous = annotatedSizes.putIfAbsent(cacheName, maximumSize);
+        if (previous != null && previous != maximumSize) {
+            long resolved = annotatedSizes.merge(cacheName, maximumSize, Math::max);
+            logger.warn("Cache '{}' has conflicting @Cached maximumSize ({} and {}), using {}",
+                    cacheName, previous, maximumSize, resolved);
+        }
+    }
+
+    /**
+     * Размер из аннотации или -1, если ни один @Cached этого кэша его не задает
+     */
+    public long annotatedSize(String cacheName) {
+        return annotatedSizes.getOrDefault(cacheName, -1L);
+    }
+
+    /**
+     * Имя кэша: из аннотации или Класс.метод
+     */
+    public static String cacheName(Cached cached, Method method) {
+        if (!cached.cacheName().isEmpty()) {
+            return cached.cacheName();
+        }
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.aspects.starter.cache;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Счетчики @Cached по каждому кэшу. Все операции записи lock-free (LongAdder),
+ * поэтому их можно вызывать на каждом обращении к кэшу.
+ */
+public class CacheStatistics {
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    // Подписчики на появление нового кэша (например, регистрация метрик Micrometer)
+    private final List<BiConsumer<String, Counters>> newCacheListeners = new CopyOnWriteArrayList<>();
+
+    public Counters forCache(String cacheName) {
+        Counters existing = counters.get(cacheName);
+        if (existing != null) {
+            return existing;
+        }
+        return counters.computeIfAbsent(cacheName, name -> {
+            Counters created = new Counters();
+            newCacheListeners.forEach(listener -> listener.accept(name, created));
+            return created;
+        });
+    }
+
+    public Map<String, Counters> getAll() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    public void onNewCache(BiConsumer<String, Counters> listener) {
+        newCacheListeners.add(listener);
+        counters.forEach(listener);
+    }
+
+    public static class Counters {
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+        private final LongAdder loadSuccesses = new LongAdder();
+        private final LongAdder loadFailures = new LongAdder();
+        private final LongAdder totalLoadTimeNanos = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder expirations = new LongAdder();
+
+        public void recordHit() {
+            hits.increment();
+        }
+
+        public void recordMiss() {
+            misses.increment();
+        }
+
+        public void recordLoadSuccess(long loadTimeNanos) {
+            loadSuccesses.increment();
+            totalLoadTimeNanos.add(loadTimeNanos);
+        }
+
+        public void recordLoadFailure(long loadTimeNanos) {
+            loadFailures.increment();
+            totalLoadTimeNanos.add(loadTimeNanos);
+        }
+
+        public void recordEviction() {
+            evictions.increment();
+        }
+
+        public void recordExpirations(long count) {
+            expirations.add(count);
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public long getMisses() {
+            return misses.sum();
+        }
+
+        public long getLoadSuccesses() {
+            return loadSuccesses.sum();
+        }
+
+        public long getLoadFailures() {
+            return loadFailures.sum();
+        }
+
+        public long getTotalLoadTimeNanos() {
+            return totalLoadTimeNanos.sum();
+        }
+
+        public long getEvictions() {
+            return evictions.sum();
+        }
+
+        public long getExpirations() {
+            return expirations.sum();
+        }
+
+        public Snapshot snapshot() {
+            return new Snapshot(getHits(), getMisses(), getLoadSuccesses(), getLoadFailures(),
+                    getTotalLoadTimeNanos(), getEvictions(), getExpirations());
+        }
+    }
+
+    public record Snapshot(long hits,
+                           long misses,
+                           long loadSuccesses,
+                           long loadFailures,
+                           long totalLoadTimeNanos,
+                           long evictions,
+                           long expirations) {
+
+        public double getHitRate() {
+            long requests = hits + misses;
+            return requests == 0 ? 0.0 : (double) hits / requests;
+        }
+
+        public double getAverageLoadTimeMillis() {
+            long loads = loadSuccesses + loadFailures;
+            return loads == 0 ? 0.0 : totalLoadTimeNanos / 1_000_000.0 / loads;
+        }
+    }
+}
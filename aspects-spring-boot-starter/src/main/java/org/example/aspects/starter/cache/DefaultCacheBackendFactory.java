@@ -0,0 +1,17 @@
+package org.example.aspects.starter.cache;
+
+import org.example.aspects.starter.config.AspectsProperties;
+
+/**
+ * Выбирает встроенный backend по aspects.cache.backend
+ */
+public class DefaultCacheBackendFactory implements CacheBackendFactory {
+
+    @Override
+    public CacheBackend create(AspectsProperties.Cache properties, CacheStatistics statistics) {
+        return switch (properties.getBackend()) {
+            case SIMPLE -> new SimpleCacheBackend(statistics);
+            case TINY_LFU -> new TinyLfuCacheBackend(statistics);
+        };
+    }
+}
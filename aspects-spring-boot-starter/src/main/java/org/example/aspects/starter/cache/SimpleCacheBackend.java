@@ -0,0 +1,110 @@
+package org.example.aspects.starter.cache;
+
+import org.example.aspects.starter.dto.CacheEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Простой backend на ConcurrentHashMap: без ограничения размера,
+ * просроченные записи удаляются при чтении и периодической очисткой.
+ */
+public class SimpleCacheBackend implements CacheBackend {
+
+    private static final Logger logger = LoggerFactory.getLogger(SimpleCacheBackend.class);
+
+    // Хранилище кэшей: Map<CacheName, Map<Key, CacheEntry>>
+    private final Map<String, Map<Object, CacheEntry>> cacheStore = new ConcurrentHashMap<>();
+
+    private final CacheStatistics statistics;
+
+    public SimpleCacheBackend(CacheStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public CacheEntry get(String cacheName, Object key) {
+        Map<Object, CacheEntry> cache = cacheStore.get(cacheName);
+        if (cache == null) {
+            return null;
+        }
+
+        CacheEntry entry = cache.get(key);
+        if (entry == null) {
+            return null;
+        }
+
+        // Проверяем не истекло ли время
+        if (entry.isExpired()) {
+            if (cache.remove(key, entry)) {
+                statistics.forCache(cacheName).recordExpirations(1);
+            }
+            logger.debug("Expired cache entry removed: {}/{}", cacheName, key);
+            return null;
+        }
+
+        return entry;
+    }
+
+    @Override
+    public void put(String cacheName, Object key, CacheEntry entry, long maximumSize) {
+        cacheStore.computeIfAbsent(cacheName, k -> new ConcurrentHashMap<>()).put(key, entry);
+    }
+
+    @Override
+    public void evict(String cacheName, Object key) {
+        Map<Object, CacheEntry> cache = cacheStore.get(cacheName);
+        if (cache != null) {
+            cache.remove(key);
+        }
+    }
+
+    @Override
+    public boolean clear(String cacheName) {
+        return cacheStore.remove(cacheName) != null;
+    }
+
+    @Override
+    public int clearAll() {
+        int size = cacheStore.size();
+        cacheStore.clear();
+        return size;
+    }
+
+    @Override
+    public Map<String, Integer> sizes() {
+        Map<String, Integer> sizes = new ConcurrentHashMap<>();
+        cacheStore.forEach((cacheName, cache) -> sizes.put(cacheName, cache.size()));
+        return sizes;
+    }
+
+    @Override
+    public int cleanupExpired() {
+        int totalRemoved = 0;
+
+        for (Map.Entry<String, Map<Object, CacheEntry>> cacheEntry : cacheStore.entrySet()) {
+            String cacheName = cacheEntry.getKey();
+            Map<Object, CacheEntry> cache = cacheEntry.getValue();
+
+            int removed = 0;
+            var iterator = cache.entrySet().iterator();
+            while (iterator.hasNext()) {
+                var entry = iterator.next();
+                if (entry.getValue().isExpired()) {
+                    iterator.remove();
+                    removed++;
+                }
+            }
+            totalRemoved += removed;
+
+            if (removed > 0) {
+                statistics.forCache(cacheName).recordExpirations(removed);
+                logger.debug("Cleaned {} expired entries from cache: {}", removed, cacheName);
+            }
+        }
+
+        return totalRemoved;
+    }
+}
@@ -0,0 +1,115 @@
+package org.example.aspects.starter.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.example.aspects.starter.dto.CacheEntry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Backend с ограничением размера и вытеснением по частоте обращений (W-TinyLFU, реализация Caffeine).
+ * TTL каждой записи берется из {@link CacheEntry#getExpirationTime()}.
+ */
+public class TinyLfuCacheBackend implements CacheBackend {
+
+    private final Map<String, Cache<Object, CacheEntry>> caches = new ConcurrentHashMap<>();
+
+    private final CacheStatistics statistics;
+
+    public TinyLfuCacheBackend(CacheStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public CacheEntry get(String cacheName, Object key) {
+        Cache<Object, CacheEntry> cache = caches.get(cacheName);
+        return cache != null ? cache.getIfPresent(key) : null;
+    }
+
+    @Override
+    public void put(String cacheName, Object key, CacheEntry entry, long maximumSize) {
+        caches.computeIfAbsent(cacheName, name -> buildCache(name, maximumSize)).put(key, entry);
+    }
+
+    @Override
+    public void evict(String cacheName, Object key) {
+        Cache<Object, CacheEntry> cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    @Override
+    public boolean clear(String cacheName) {
+        Cache<Object, CacheEntry> cache = caches.remove(cacheName);
+        if (cache == null) {
+            return false;
+        }
+        cache.invalidateAll();
+        return true;
+    }
+
+    @Override
+    public int clearAll() {
+        int size = caches.size();
+        caches.values().forEach(Cache::invalidateAll);
+        caches.clear();
+        return size;
+    }
+
+    @Override
+    public Map<String, Integer> sizes() {
+        Map<String, Integer> sizes = new ConcurrentHashMap<>();
+        caches.forEach((cacheName, cache) -> sizes.put(cacheName, (int) cache.estimatedSize()));
+        return sizes;
+    }
+
+    @Override
+    public int cleanupExpired() {
+        // Caffeine удаляет просроченные записи сам; здесь лишь выполняем отложенное обслуживание
+        caches.values().forEach(Cache::cleanUp);
+        return 0;
+    }
+
+    private Cache<Object, CacheEntry> buildCache(String cacheName, long maximumSize) {
+        CacheStatistics.Counters counters = statistics.forCache(cacheName);
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new EntryExpiry())
+                .evictionListener((Object key, CacheEntry entry, RemovalCause cause) -> {
+                    if (cause == RemovalCause.EXPIRED) {
+                        counters.recordExpirations(1);
+                    } else {
+                        counters.recordEviction();
+                    }
+                })
+                .build();
+    }
+
+    private static final class EntryExpiry implements Expiry<Object, CacheEntry> {
+
+        @Override
+        public long expireAfterCreate(Object key, CacheEntry entry, long currentTime) {
+            return remainingNanos(entry);
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, CacheEntry entry, long currentTime, long currentDuration) {
+            return remainingNanos(entry);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, CacheEntry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        private long remainingNanos(CacheEntry entry) {
+            return Math.max(0, Duration.between(Instant.now(), entry.getExpirationTime()).toNanos());
+        }
+    }
+}
@@ -1,6 +1,17 @@
 package org.example.aspects.starter.config;
 
 import org.example.aspects.starter.aspect.*;
+import org.example.aspects.starter.cache.CacheBackend;
+import org.example.aspects.starter.cache.CacheBackendFactory;
+import org.example.aspects.starter.cache.CacheEndpoint;
+import org.example.aspects.starter.cache.CacheMetricsBinder;
+import org.example.aspects.starter.cache.CacheSizeRegistry;
+import org.example.aspects.starter.cache.CacheStatistics;
+import org.example.aspects.starter.cache.DefaultCacheBackendFactory;
+import org.example.aspects.starter.shipper.KafkaLogShipper;
+import org.example.aspects.starter.spool.LogSpool;
+import org.example.aspects.starter.spool.SpoolReplayer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -11,6 +22,9 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.KafkaTemplate;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 @Configuration
 @EnableConfigurationProperties(AspectsProperties.class)
 @ConditionalOnClass(name = "org.aspectj.lang.ProceedingJoinPoint")
@@ -21,15 +35,95 @@ public class AspectsAutoConfiguration {
     @ConditionalOnProperty(prefix = "aspects.metric", name = "enabled", havingValue = "true", matchIfMissing = true)
     @ConditionalOnClass(name = "org.springframework.kafka.core.KafkaTemplate")
     public MetricAspect metricAspect(AspectsProperties properties,
-                                     KafkaTemplate<String, Object> kafkaTemplate,
-                                     ObjectMapper objectMapper) {
-        return new MetricAspect(properties.getMetric(), kafkaTemplate, objectMapper);
+                                     KafkaLogShipper kafkaLogShipper) {
+        return new MetricAspect(properties.getMetric(), kafkaLogShipper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnClass(name = "org.springframework.kafka.core.KafkaTemplate")
+    public KafkaLogShipper kafkaLogShipper(AspectsProperties properties,
+                                           KafkaTemplate<String, Object> kafkaTemplate,
+                                           ObjectProvider<LogSpool> logSpool,
+                                           ObjectMapper objectMapper) {
+        return new KafkaLogShipper(kafkaTemplate, properties.getShipper(), logSpool.getIfAvailable(), objectMapper);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "aspects.spool", name = "enabled", havingValue = "true")
+    public LogSpool logSpool(AspectsProperties properties) throws IOException {
+        AspectsProperties.Spool spool = properties.getSpool();
+        // tmpdir не переживает рестарт контейнера и общий для реплик на одном хосте - путь задается явно
+        if (spool.getPath().isBlank()) {
+            throw new IllegalStateException("aspects.spool.path must be set when aspects.spool.enabled=true");
+        }
+        return new LogSpool(Path.of(spool.getPath()), spool.getCapacityMb() * 1024L * 1024L);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "aspects.spool", name = "enabled", havingValue = "true")
+    @ConditionalOnClass(name = "org.springframework.kafka.core.KafkaTemplate")
+    public SpoolReplayer spoolReplayer(LogSpool logSpool,
+                                       KafkaTemplate<String, Object> kafkaTemplate,
+                                       ObjectMapper objectMapper,
+                                       AspectsProperties properties) {
+        return new SpoolReplayer(logSpool, kafkaTemplate, objectMapper, properties.getSpool());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheStatistics cacheStatistics() {
+        return new CacheStatistics();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheBackendFactory cacheBackendFactory() {
+        return new DefaultCacheBackendFactory();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheBackend cacheBackend(AspectsProperties properties, CacheStatistics cacheStatistics,
+                                     CacheBackendFactory cacheBackendFactory) {
+        return cacheBackendFactory.create(properties.getCache(), cacheStatistics);
+    }
+
+    // BeanPostProcessor: static, чтобы не создавать конфигурацию раньше остальных бинов
+    @Bean
+    @ConditionalOnMissingBean
+    public static CacheSizeRegistry cacheSizeRegistry() {
+        return new CacheSizeRegistry();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class CacheMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public CacheMetricsBinder cacheMetricsBinder(CacheStatistics cacheStatistics, CacheBackend cacheBackend) {
+            return new CacheMetricsBinder(cacheStatistics, cacheBackend);
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+    static class CacheEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public CacheEndpoint cacheEndpoint(CacheStatistics cacheStatistics, CacheBackend cacheBackend) {
+            return new CacheEndpoint(cacheStatistics, cacheBackend);
+        }
     }
 
     @Bean
     public HttpIncomeRequestLogAspect httpIncomeRequestLogAspect(
             AspectsProperties aspectsProperties,
-            KafkaTemplate<String, Object> kafkaTemplate,
+            KafkaLogShipper kafkaLogShipper,
             ObjectMapper objectMapper,
             @Value("${spring.application.name:unknown-service}") String serviceName) {
         System.out.println("=== CREATING HTTP INCOME REQUEST LOG ASPECT ===");
@@ -37,7 +131,7 @@ public class AspectsAutoConfiguration {
         System.out.println("HTTP Request enabled: " + aspectsProperties.getHttpRequest().isEnabled());
         return new HttpIncomeRequestLogAspect(
                 aspectsProperties.getHttpRequest(),
-                kafkaTemplate,
+                kafkaLogShipper,
                 objectMapper,
                 serviceName
         );
@@ -46,12 +140,12 @@ public class AspectsAutoConfiguration {
     @Bean
     public HttpOutcomeRequestLogAspect httpOutcomeRequestLogAspect(
             AspectsProperties aspectsProperties,
-            KafkaTemplate<String, Object> kafkaTemplate,
+            KafkaLogShipper kafkaLogShipper,
             ObjectMapper objectMapper,
             @Value("${spring.application.name:unknown-service}") String serviceName) {
         return new HttpOutcomeRequestLogAspect(
                 aspectsProperties.getHttpRequest(),
-                kafkaTemplate,
+                kafkaLogShipper,
                 objectMapper,
                 serviceName
         );
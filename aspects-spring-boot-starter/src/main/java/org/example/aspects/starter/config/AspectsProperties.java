@@ -4,6 +4,11 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Data
 @ConfigurationProperties(prefix = "aspects")
 public class AspectsProperties {
@@ -12,11 +17,17 @@ public class AspectsProperties {
     private Cache cache = new Cache();
     private Datasource datasource = new Datasource();
     private HttpRequest httpRequest = new HttpRequest();
+    private Shipper shipper = new Shipper();
+    private Spool spool = new Spool();
     @Data
     public static class Metric {
         private boolean enabled = true;
         private boolean kafkaEnabled = true;
         private long executionTimeLimit = 3000;
+        // Интервал публикации перцентилей задержки, секунды
+        private int publishInterval = 60;
+        // Сколько самых медленных вызовов (по отпечатку аргументов) попадает в снимок окна
+        private int topSlowCalls = 5;
         private String kafkaTopic = "service_logs";
     }
 
@@ -25,6 +36,17 @@ public class AspectsProperties {
         private boolean enabled = true;
         private long defaultTtl = 300000;
         private int cleanupInterval = 30;
+        // simple - неограниченная ConcurrentHashMap, tiny-lfu - ограниченный по размеру кэш (Caffeine)
+        private Backend backend = Backend.TINY_LFU;
+        // Максимальное число записей в одном кэше по умолчанию
+        private long maximumSize = 10000;
+        // Переопределения maximumSize по имени кэша
+        private Map<String, Long> maximumSizes = new HashMap<>();
+
+        public enum Backend {
+            SIMPLE,
+            TINY_LFU
+        }
     }
 
     @Data
@@ -35,11 +57,46 @@ public class AspectsProperties {
         private String kafkaTopic = "service_logs";
     }
 
+    @Data
+    public static class Shipper {
+        // Размер очереди сообщений, ожидающих отправки в Kafka
+        private int queueCapacity = 10000;
+        // Сколько сообщений фоновый поток отправляет за один проход
+        private int batchSize = 200;
+        // Сколько ждать подтверждения Kafka для пачки, мс
+        private long sendTimeoutMs = 5000;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+        public enum OverflowPolicy {
+            DROP_NEWEST,
+            DROP_OLDEST
+        }
+    }
+
+    @Data
+    public static class Spool {
+        // Включается явно: spool пишет на диск
+        private boolean enabled = false;
+        // Путь к spool-файлу, обязателен при enabled=true. Должен лежать на постоянном томе
+        // и быть своим у каждого экземпляра (файл блокируется, второй процесс не стартует)
+        private String path = "";
+        // Не больше 2047 МБ (файл отображается в память одним буфером)
+        private int capacityMb = 64;
+        // Как часто проверять spool и досылать записи в Kafka, секунды
+        private int replayInterval = 5;
+        private int replayBatchSize = 500;
+    }
+
     @Data
     public static class HttpRequest {
         private boolean enabled = true;
         private boolean kafkaEnabled = true;
         private boolean fallbackToDatabase = true;
         private String kafkaTopic = "service_logs";
+        // Доля входящих запросов, попадающих в лог (1.0 - все, 0.1 - каждый десятый в среднем)
+        private double sampleRate = 1.0;
+        // Заголовки входящего запроса, которые попадают в лог; остальные не копируются
+        private List<String> headerAllowList = new ArrayList<>(List.of(
+                "Content-Type", "User-Agent", "X-Request-Id", "X-Forwarded-For"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package org.example.aspects.starter.dto;
+
+import lombok.Data;
+import java.time.Instant;
+import java.util.List;
+
+@Data
+public class MetricSnapshotMessage {
+    private Instant windowStart;
+    private Instant windowEnd;
+    private String serviceName;
+    private String metricName;
+    private long count;
+    private long errorCount;
+    private long p50Micros;
+    private long p99Micros;
+    private long p999Micros;
+    private long maxMicros;
+    private long executionTimeLimitMs;
+    private List<SlowCall> topSlowCalls;
+
+    @Data
+    public static class SlowCall {
+        private String arguments;
+        private long executionTimeMs;
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.aspects.starter.metric;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Перцентили задержки одной метрики за интервал, в микросекундах
+ */
+public record LatencySnapshot(String metricName,
+                              long count,
+                              long p50Micros,
+                              long p99Micros,
+                              long p999Micros,
+                              long maxMicros) {
+
+    public static LatencySnapshot of(String metricName, Histogram histogram) {
+        return new LatencySnapshot(
+                metricName,
+                histogram.getTotalCount(),
+                toMicros(histogram.getValueAtPercentile(50.0)),
+                toMicros(histogram.getValueAtPercentile(99.0)),
+                toMicros(histogram.getValueAtPercentile(99.9)),
+                toMicros(histogram.getMaxValue())
+        );
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
@@ -0,0 +1,124 @@
+package org.example.aspects.starter.metric;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Окна агрегации @Metric по имени метрики: гистограмма задержек, число ошибок
+ * и top-N самых медленных вызовов с отпечатками аргументов.
+ * Пишущие потоки не блокируются (кроме редких медленных вызовов),
+ * {@link #drain()} закрывает текущие окна и открывает новые.
+ */
+public class MetricWindows {
+
+    // 3 значащие цифры: погрешность перцентилей не более 0.1%
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final int topSlowCalls;
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+
+    public MetricWindows(int topSlowCalls) {
+        this.topSlowCalls = topSlowCalls;
+    }
+
+    public void record(String metricName, long durationNanos, boolean failed) {
+        Window window = window(metricName);
+        window.recorder.recordValue(durationNanos);
+        if (failed) {
+            window.errors.increment();
+        }
+    }
+
+    public void recordSlowCall(String metricName, String fingerprint, long executionTimeMs) {
+        window(metricName).offerSlowCall(fingerprint, executionTimeMs, topSlowCalls);
+    }
+
+    /**
+     * Закрывает окна всех метрик, по которым были вызовы с прошлого раза
+     */
+    public List<WindowSnapshot> drain() {
+        Instant now = Instant.now();
+        List<WindowSnapshot> snapshots = new ArrayList<>();
+        windows.forEach((metricName, window) -> {
+            Histogram latency = window.recorder.getIntervalHistogram();
+            long errorCount = window.errors.sumThenReset();
+            List<SlowCall> slowCalls = window.drainSlowCalls();
+            Instant windowStart = window.windowStart;
+            window.windowStart = now;
+
+            if (latency.getTotalCount() > 0) {
+                snapshots.add(new WindowSnapshot(metricName, windowStart, now, latency, errorCount, slowCalls));
+            }
+        });
+        return snapshots;
+    }
+
+    private Window window(String metricName) {
+        Window window = windows.get(metricName);
+        if (window == null) {
+            window = windows.computeIfAbsent(metricName, name -> new Window());
+        }
+        return window;
+    }
+
+    public record SlowCall(String fingerprint, long executionTimeMs) {
+    }
+
+    public record WindowSnapshot(String metricName,
+                                 Instant windowStart,
+                                 Instant windowEnd,
+                                 Histogram latency,
+                                 long errorCount,
+                                 List<SlowCall> slowCalls) {
+    }
+
+    private static final class Window {
+        private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+        private final LongAdder errors = new LongAdder();
+        private final List<SlowCall> slowCalls = new ArrayList<>();
+        private volatile Instant windowStart = Instant.now();
+
+        synchronized void offerSlowCall(String fingerprint, long executionTimeMs, int limit) {
+            // Один отпечаток аргументов занимает одну позицию - с максимальным временем
+            for (int i = 0; i < slowCalls.size(); i++) {
+                SlowCall existing = slowCalls.get(i);
+                if (existing.fingerprint().equals(fingerprint)) {
+                    if (executionTimeMs > existing.executionTimeMs()) {
+                        slowCalls.set(i, new SlowCall(fingerprint, executionTimeMs));
+                    }
+                    return;
+                }
+            }
+
+            if (slowCalls.size() < limit) {
+                slowCalls.add(new SlowCall(fingerprint, executionTimeMs));
+                return;
+            }
+
+            int fastest = 0;
+            for (int i = 1; i < slowCalls.size(); i++) {
+                if (slowCalls.get(i).executionTimeMs() < slowCalls.get(fastest).executionTimeMs()) {
+                    fastest = i;
+                }
+            }
+            if (executionTimeMs > slowCalls.get(fastest).executionTimeMs()) {
+                slowCalls.set(fastest, new SlowCall(fingerprint, executionTimeMs));
+            }
+        }
+
+        synchronized List<SlowCall> drainSlowCalls() {
+            List<SlowCall> drained = new ArrayList<>(slowCalls);
+            slowCalls.clear();
+            drained.sort(Comparator.comparingLong(SlowCall::executionTimeMs).reversed());
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package org.example.aspects.starter.shipper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.aspects.starter.config.AspectsProperties;
+import org.example.aspects.starter.spool.LogSpool;
+import org.example.aspects.starter.spool.SpooledMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Асинхронная отправка сообщений аспектов в Kafka.
+ * Бизнес-поток только кладет сообщение в ограниченную очередь и сразу возвращается;
+ * фоновый поток забирает сообщения пачками, отправляет их и ждет подтверждения.
+ * Недоставленные сообщения (и не поместившиеся в очередь) записываются в {@link LogSpool},
+ * если он настроен. Колбэк отказа вызывается, только если Kafka не подтвердила доставку
+ * и сообщение не удалось сохранить в spool, а также для сообщения, вытесненного из очереди
+ * политикой DROP_OLDEST.
+ */
+public class KafkaLogShipper {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaLogShipper.class);
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final AspectsProperties.Shipper properties;
+    private final BlockingQueue<Envelope> queue;
+    private final LogSpool spool;
+    private final ObjectMapper objectMapper;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder spooled = new LongAdder();
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public KafkaLogShipper(KafkaTemplate<String, Object> kafkaTemplate, AspectsProperties.Shipper properties) {
+        this(kafkaTemplate, properties, null, null);
+    }
+
+    public KafkaLogShipper(KafkaTemplate<String, Object> kafkaTemplate,
+                           AspectsProperties.Shipper properties,
+                           LogSpool spool,
+                           ObjectMapper objectMapper) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.spool = spool;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::runLoop, "kafka-log-shipper");
+        worker.setDaemon(true);
+        worker.start();
+        logger.info("KafkaLogShipper started: queue capacity {}, batch size {}, overflow policy {}",
+                properties.getQueueCapacity(), properties.getBatchSize(), properties.getOverflowPolicy());
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            try {
+                // Даем дослать то, что уже в очереди
+                worker.join(properties.getSendTimeoutMs() * 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        logger.info("KafkaLogShipper stopped: {}", getStats());
+    }
+
+    /**
+     * Ставит сообщение в очередь на отправку. Не блокирует вызывающий поток.
+     *
+     * @param onFailure вызывается в фоновом потоке, если доставка не подтверждена,
+     *                  или в вызывающем потоке, если сообщение вытеснено из очереди (DROP_OLDEST)
+     * @return false, если сообщение отброшено из-за переполнения очереди; колбэк отказа
+     * для него не вызывается, обработать отказ должен вызывающий
+     */
+    public boolean submit(Message<?> message, Consumer<Throwable> onFailure) {
+        Envelope envelope = new Envelope(message, onFailure);
+
+        if (queue.offer(envelope)) {
+            enqueued.increment();
+            return true;
+        }
+
+        // Очередь переполнена (Kafka не успевает) - сохраняем в spool вместо потери
+        if (writeToSpool(message)) {
+            return true;
+        }
+
+        if (properties.getOverflowPolicy() == AspectsProperties.Shipper.OverflowPolicy.DROP_OLDEST) {
+            // Освобождаем место, выбрасывая самое старое сообщение; его отправитель узнает об этом через колбэк
+            Envelope evicted = queue.poll();
+            if (evicted != null) {
+                dropped.increment();
+                notifyFailure(evicted, new IllegalStateException("Log shipper queue overflow, message evicted"));
+            }
+            if (queue.offer(envelope)) {
+                enqueued.increment();
+                return true;
+            }
+        }
+
+        dropped.increment();
+        logger.debug("Log shipper queue is full, message dropped");
+        return false;
+    }
+
+    public Stats getStats() {
+        return new Stats(enqueued.sum(), sent.sum(), failed.sum(), dropped.sum(), spooled.sum(), queue.size());
+    }
+
+    private void runLoop() {
+        List<Envelope> batch = new ArrayList<>(properties.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                Envelope first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, properties.getBatchSize() - 1);
+                ship(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Log shipper batch failed: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void ship(List<Envelope> batch) throws InterruptedException {
+        // Отправляем всю пачку, затем ждем подтверждения с общим таймаутом
+        List<CompletableFuture<?>> futures = new ArrayList<>(batch.size());
+        for (Envelope envelope : batch) {
+            try {
+                futures.add(kafkaTemplate.send(envelope.message()));
+            } catch (Exception e) {
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getSendTimeoutMs());
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sent.increment();
+            } catch (ExecutionException e) {
+                onFailure(batch.get(i), e.getCause());
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                onFailure(batch.get(i), e);
+            }
+        }
+    }
+
+    private void onFailure(Envelope envelope, Throwable cause) {
+        failed.increment();
+        if (writeToSpool(envelope.message())) {
+            return;
+        }
+        notifyFailure(envelope, cause);
+    }
+
+    private void notifyFailure(Envelope envelope, Throwable cause) {
+        if (envelope.onFailure() == null) {
+            return;
+        }
+        try {
+            envelope.onFailure().accept(cause);
+        } catch (Exception e) {
+            logger.error("Log shipper failure handler threw: {}", e.getMessage());
+        }
+    }
+
+    private boolean writeToSpool(Message<?> message) {
+        if (spool == null) {
+            return false;
+        }
+        try {
+            if (spool.append(SpooledMessage.from(message, objectMapper).encode(objectMapper))) {
+                spooled.increment();
+                return true;
+            }
+            logger.debug("Log spool is full, message not spooled");
+        } catch (Exception e) {
+            logger.warn("Failed to write message to log spool: {}", e.getMessage());
+        }
+        return false;
+    }
+
+    private record Envelope(Message<?> message, Consumer<Throwable> onFailure) {
+    }
+
+    public record Stats(long enqueued, long sent, long failed, long dropped, long spooled, int queued) {
+    }
+}
@@ -0,0 +1,210 @@
+package org.example.aspects.starter.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only spool-файл, отображенный в память (mmap), для сообщений, которые не удалось доставить в Kafka.
+ * Формат: заголовок [magic:int][version:int][writePosition:long][readPosition:long],
+ * далее записи [length:int][bytes]. Позиции хранятся в заголовке, поэтому после перезапуска
+ * процесса недоставленные записи продолжают отправляться с того же места.
+ * Когда все записи вычитаны, позиции сбрасываются в начало и файл переиспользуется;
+ * если читатель отстает, непрочитанный хвост переносится в начало файла (compaction).
+ * Файл блокируется (FileLock) на все время работы: два процесса не могут писать в один spool.
+ */
+public class LogSpool implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogSpool.class);
+
+    private static final int MAGIC = 0x53504F4C; // "SPOL"
+    private static final int VERSION = 1;
+    private static final int WRITE_POSITION_OFFSET = 8;
+    private static final int READ_POSITION_OFFSET = 16;
+    private static final int HEADER_SIZE = 24;
+    private static final int LENGTH_SIZE = Integer.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final FileLock lock;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private int writePosition;
+    private int readPosition;
+
+    public LogSpool(Path path, long capacityBytes) throws IOException {
+        // Позиции - int, а один MappedByteBuffer не больше 2 ГБ
+        if (capacityBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Log spool capacity must be less than 2048 MB: " + capacityBytes + " bytes");
+        }
+        this.path = path;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.lock = tryLock(channel, path);
+        this.capacity = (int) Math.max(capacityBytes, HEADER_SIZE + LENGTH_SIZE);
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        if (buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION && hasValidPositions()) {
+            this.writePosition = (int) buffer.getLong(WRITE_POSITION_OFFSET);
+            this.readPosition = (int) buffer.getLong(READ_POSITION_OFFSET);
+            logger.info("Log spool opened: {}, pending bytes: {}", path, writePosition - readPosition);
+        } else {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            reset();
+            logger.info("Log spool initialized: {}, capacity: {} bytes", path, capacity);
+        }
+    }
+
+    /**
+     * Дописывает запись в конец файла
+     *
+     * @return false, если места не осталось
+     */
+    public synchronized boolean append(byte[] record) {
+        int required = LENGTH_SIZE + record.length;
+        if (writePosition + required > capacity && canCompact()) {
+            compact();
+        }
+        if (writePosition + required > capacity) {
+            return false;
+        }
+
+        buffer.put(writePosition + LENGTH_SIZE, record);
+        buffer.putInt(writePosition, record.length);
+        writePosition += required;
+        // Позиция записи обновляется последней: запись видна читателю только целиком
+        buffer.putLong(WRITE_POSITION_OFFSET, writePosition);
+        return true;
+    }
+
+    /**
+     * Читает до maxRecords записей, не сдвигая позицию чтения.
+     * После успешной обработки нужно вызвать {@link #commit(long)} с позицией из результата.
+     */
+    public synchronized Batch peek(int maxRecords) {
+        List<byte[]> records = new ArrayList<>();
+        int position = readPosition;
+
+        while (records.size() < maxRecords && position < writePosition) {
+            int length = buffer.getInt(position);
+            if (length < 0 || position + LENGTH_SIZE + length > writePosition) {
+                logger.warn("Log spool {} is corrupted at position {}, discarding {} bytes",
+                        path, position, writePosition - position);
+                reset();
+                return new Batch(List.of(), HEADER_SIZE);
+            }
+            byte[] record = new byte[length];
+            buffer.get(position + LENGTH_SIZE, record);
+            records.add(record);
+            position += LENGTH_SIZE + length;
+        }
+
+        return new Batch(records, position);
+    }
+
+    /**
+     * Отмечает записи до указанной позиции как доставленные
+     */
+    public synchronized void commit(long position) {
+        if (position <= readPosition || position > writePosition) {
+            return;
+        }
+        readPosition = (int) position;
+        if (readPosition == writePosition) {
+            // Все вычитано - начинаем файл заново
+            reset();
+        } else if (readPosition >= capacity / 2 && canCompact()) {
+            // Читатель отстает: освобождаем вычитанную половину, не дожидаясь полного опустошения
+            compact();
+        } else {
+            buffer.putLong(READ_POSITION_OFFSET, readPosition);
+        }
+        buffer.force();
+    }
+
+    public synchronized boolean isEmpty() {
+        return readPosition == writePosition;
+    }
+
+    public synchronized int getPendingBytes() {
+        return writePosition - readPosition;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        if (lock.isValid()) {
+            lock.release();
+        }
+        channel.close();
+    }
+
+    private static FileLock tryLock(FileChannel channel, Path path) throws IOException {
+        FileLock fileLock;
+        try {
+            fileLock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null;
+        }
+        if (fileLock == null) {
+            channel.close();
+            throw new IOException("Log spool " + path + " is already in use by another process; "
+                    + "each instance needs its own aspects.spool.path");
+        }
+        return fileLock;
+    }
+
+    /**
+     * Перенос возможен, только если вычитанная часть не меньше непрочитанной:
+     * тогда копия не перекрывает исходные записи, и сбой посреди копирования их не портит
+     */
+    private boolean canCompact() {
+        int pending = writePosition - readPosition;
+        return readPosition > HEADER_SIZE && readPosition - HEADER_SIZE >= pending;
+    }
+
+    private void compact() {
+        int pending = writePosition - readPosition;
+        buffer.put(HEADER_SIZE, buffer.slice(readPosition, pending), 0, pending);
+        buffer.force();
+
+        // Заголовок меняется только после того, как копия записана на диск
+        writePosition = HEADER_SIZE + pending;
+        readPosition = HEADER_SIZE;
+        buffer.putLong(WRITE_POSITION_OFFSET, writePosition);
+        buffer.putLong(READ_POSITION_OFFSET, readPosition);
+        logger.debug("Log spool {} compacted, pending bytes: {}", path, pending);
+    }
+
+    private boolean hasValidPositions() {
+        long write = buffer.getLong(WRITE_POSITION_OFFSET);
+        long read = buffer.getLong(READ_POSITION_OFFSET);
+        return read >= HEADER_SIZE && read <= write && write <= capacity;
+    }
+
+    private void reset() {
+        writePosition = HEADER_SIZE;
+        readPosition = HEADER_SIZE;
+        buffer.putLong(WRITE_POSITION_OFFSET, writePosition);
+        buffer.putLong(READ_POSITION_OFFSET, readPosition);
+    }
+
+    public record Batch(List<byte[]> records, long endPosition) {
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.aspects.starter.spool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.aspects.starter.config.AspectsProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Периодически дочитывает {@link LogSpool} и отправляет записи в Kafka пачками.
+ * Позиция чтения сдвигается только после подтверждения всей пачки,
+ * поэтому при новой недоступности Kafka записи не теряются (возможны повторы).
+ */
+public class SpoolReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpoolReplayer.class);
+
+    private final LogSpool spool;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final AspectsProperties.Spool properties;
+
+    private ScheduledExecutorService scheduler;
+
+    public SpoolReplayer(LogSpool spool,
+                         KafkaTemplate<String, Object> kafkaTemplate,
+                         ObjectMapper objectMapper,
+                         AspectsProperties.Spool properties) {
+        this.spool = spool;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "log-spool-replayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::replay,
+                properties.getReplayInterval(), properties.getReplayInterval(), TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void replay() {
+        try {
+            int replayed = 0;
+            while (!spool.isEmpty()) {
+                int sent = replayBatch();
+                if (sent == 0) {
+                    break;
+                }
+                replayed += sent;
+            }
+            if (replayed > 0) {
+                logger.info("Replayed {} spooled messages to Kafka, pending bytes: {}",
+                        replayed, spool.getPendingBytes());
+            }
+        } catch (Exception e) {
+            logger.warn("Log spool replay failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return сколько записей подтверждено и снято со spool
+     */
+    private int replayBatch() throws InterruptedException {
+        LogSpool.Batch batch = spool.peek(properties.getReplayBatchSize());
+        if (batch.records().isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<?>> futures = new ArrayList<>(batch.records().size());
+        for (byte[] record : batch.records()) {
+            try {
+                futures.add(kafkaTemplate.send(SpooledMessage.decode(record, objectMapper).toMessage(objectMapper)));
+            } catch (Exception e) {
+                // Нечитаемую запись не отправляем, но и не блокируем ей spool
+                logger.warn("Skipping unreadable spooled message: {}", e.getMessage());
+                futures.add(CompletableFuture.completedFuture(null));
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(properties.getReplayInterval() + 5L);
+        for (CompletableFuture<?> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                // Kafka снова недоступна - позицию не сдвигаем, повторим на следующем запуске
+                logger.debug("Kafka is still unavailable for spool replay: {}", e.getMessage());
+                return 0;
+            }
+        }
+
+        spool.commit(batch.endPosition());
+        return batch.records().size();
+    }
+}
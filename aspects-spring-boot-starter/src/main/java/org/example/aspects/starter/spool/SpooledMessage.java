@@ -0,0 +1,69 @@
+package org.example.aspects.starter.spool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Сообщение Kafka в виде, пригодном для записи в {@link LogSpool}:
+ * топик, ключ, строковые заголовки и payload в JSON.
+ * Строковый payload хранится как есть, чтобы при повторной отправке
+ * он прошел через тот же сериализатор, что и исходное сообщение.
+ */
+public record SpooledMessage(String topic,
+                             String key,
+                             Map<String, String> headers,
+                             boolean rawString,
+                             String payload) {
+
+    public static SpooledMessage from(Message<?> message, ObjectMapper objectMapper) throws IOException {
+        MessageHeaders messageHeaders = message.getHeaders();
+
+        Map<String, String> headers = new HashMap<>();
+        messageHeaders.forEach((name, value) -> {
+            // Служебные заголовки восстанавливаются отдельно или генерируются заново
+            if (!name.startsWith(KafkaHeaders.PREFIX)
+                    && !MessageHeaders.ID.equals(name)
+                    && !MessageHeaders.TIMESTAMP.equals(name)
+                    && value instanceof String stringValue) {
+                headers.put(name, stringValue);
+            }
+        });
+
+        Object payload = message.getPayload();
+        boolean rawString = payload instanceof String;
+        return new SpooledMessage(
+                messageHeaders.get(KafkaHeaders.TOPIC, String.class),
+                messageHeaders.get(KafkaHeaders.KEY) != null ? messageHeaders.get(KafkaHeaders.KEY).toString() : null,
+                headers,
+                rawString,
+                rawString ? (String) payload : objectMapper.writeValueAsString(payload)
+        );
+    }
+
+    public static SpooledMessage decode(byte[] bytes, ObjectMapper objectMapper) throws IOException {
+        return objectMapper.readValue(bytes, SpooledMessage.class);
+    }
+
+    public byte[] encode(ObjectMapper objectMapper) throws IOException {
+        return objectMapper.writeValueAsBytes(this);
+    }
+
+    public Message<?> toMessage(ObjectMapper objectMapper) throws IOException {
+        Object body = rawString ? payload : objectMapper.readTree(payload);
+        MessageBuilder<?> builder = MessageBuilder.withPayload(body)
+                .setHeader(KafkaHeaders.TOPIC, topic)
+                .setHeader("spooled", "true");
+        if (key != null) {
+            builder.setHeader(KafkaHeaders.KEY, key);
+        }
+        headers.forEach(builder::setHeader);
+        return builder.build();
+    }
+}
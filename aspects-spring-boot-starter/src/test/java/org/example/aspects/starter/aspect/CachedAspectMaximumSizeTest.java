@@ -0,0 +1,75 @@
+package org.example.aspects.starter.aspect;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.example.aspects.starter.annotation.Cached;
+import org.example.aspects.starter.annotation.CachedPut;
+import org.example.aspects.starter.cache.CacheBackend;
+import org.example.aspects.starter.cache.CacheSizeRegistry;
+import org.example.aspects.starter.cache.CacheStatistics;
+import org.example.aspects.starter.config.AspectsProperties;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachedAspectMaximumSizeTest {
+
+    @Test
+    void cachedPutBeforeFirstReadUsesCachedMaximumSize() throws Throwable {
+        CacheSizeRegistry cacheSizes = new CacheSizeRegistry();
+        cacheSizes.postProcessAfterInitialization(new Repository(), "repository");
+        CacheBackend backend = mock(CacheBackend.class);
+        CachedAspect aspect = new CachedAspect(new AspectsProperties.Cache(), backend, new CacheStatistics(), cacheSizes);
+
+        aspect.updateCacheOnWrite(joinPoint("save", new Item(1L)));
+
+        verify(backend).put(eq("items"), any(), any(), eq(500L));
+    }
+
+    @Test
+    void configuredSizeOverridesAnnotation() throws Throwable {
+        CacheSizeRegistry cacheSizes = new CacheSizeRegistry();
+        cacheSizes.postProcessAfterInitialization(new Repository(), "repository");
+        AspectsProperties.Cache properties = new AspectsProperties.Cache();
+        properties.getMaximumSizes().put("items", 50L);
+        CacheBackend backend = mock(CacheBackend.class);
+        CachedAspect aspect = new CachedAspect(properties, backend, new CacheStatistics(), cacheSizes);
+
+        aspect.updateCacheOnWrite(joinPoint("save", new Item(1L)));
+
+        verify(backend).put(eq("items"), any(), any(), eq(50L));
+    }
+
+    private static ProceedingJoinPoint joinPoint(String methodName, Item item) throws Throwable {
+        Method method = Repository.class.getDeclaredMethod(methodName, Item.class);
+        MethodSignature signature = mock(MethodSignature.class);
+        when(signature.getMethod()).thenReturn(method);
+        ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+        when(joinPoint.getSignature()).thenReturn(signature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{item});
+        when(joinPoint.proceed()).thenReturn(item);
+        return joinPoint;
+    }
+
+    record Item(Long id) {
+    }
+
+    static class Repository {
+
+        @Cached(cacheName = "items", maximumSize = 500)
+        Item find(Long id) {
+            return new Item(id);
+        }
+
+        @CachedPut(cacheName = "items")
+        Item save(Item item) {
+            return item;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.example.aspects.starter.cache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость построения ключа @Cached: прежний способ (поиск поля id через reflection
+ * на каждый вызов, Arrays.hashCode для нескольких аргументов) против CacheKeyGenerator
+ * (extractor на метод, MethodHandle, CacheKey с equals по всем аргументам).
+ * Запуск: mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.example.aspects.starter.cache.CacheKeyGeneratorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyGeneratorBenchmark {
+
+    private CacheKeyGenerator generator;
+    private Method byEntity;
+    private Method byIdAndAmount;
+    private Object[] entityArgs;
+    private Object[] multiArgs;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        generator = new CacheKeyGenerator();
+        byEntity = Methods.class.getDeclaredMethod("byEntity", Entity.class);
+        byIdAndAmount = Methods.class.getDeclaredMethod("byIdAndAmount", Long.class, BigDecimal.class);
+        entityArgs = new Object[]{new Entity(42L)};
+        multiArgs = new Object[]{42L, new BigDecimal("1500.00")};
+    }
+
+    @Benchmark
+    public Object entityKeyLegacy() {
+        return legacyKey(entityArgs);
+    }
+
+    @Benchmark
+    public Object entityKeyGenerator() {
+        return generator.generate(byEntity, entityArgs);
+    }
+
+    @Benchmark
+    public Object multiArgumentKeyLegacy() {
+        return legacyKey(multiArgs);
+    }
+
+    @Benchmark
+    public Object multiArgumentKeyGenerator() {
+        return generator.generate(byIdAndAmount, multiArgs);
+    }
+
+    /**
+     * Прежний CachedAspect.generateCacheKey
+     */
+    private static Object legacyKey(Object[] args) {
+        if (args.length == 1) {
+            Object arg = args[0];
+            if (arg instanceof String || arg instanceof Number || arg instanceof Boolean) {
+                return arg;
+            }
+            try {
+                Field idField = arg.getClass().getDeclaredField("id");
+                idField.setAccessible(true);
+                Object idValue = idField.get(arg);
+                if (idValue != null) {
+                    return idValue;
+                }
+            } catch (Exception e) {
+                // поле id не найдено
+            }
+            return arg.hashCode();
+        }
+        return Arrays.hashCode(args);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CacheKeyGeneratorBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    public static class Entity {
+        private final Long id;
+
+        public Entity(Long id) {
+            this.id = id;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static class Methods {
+        public void byEntity(Entity entity) {}
+        public void byIdAndAmount(Long id, BigDecimal amount) {}
+    }
+}
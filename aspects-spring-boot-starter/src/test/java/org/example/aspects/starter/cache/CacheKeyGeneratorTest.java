@@ -0,0 +1,89 @@
+package org.example.aspects.starter.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheKeyGeneratorTest {
+
+    private final CacheKeyGenerator generator = new CacheKeyGenerator();
+
+    @Test
+    void scalarArgumentsOfDifferentTypesShareKey() throws Exception {
+        Object byLong = generator.generate(method("byLong", Long.class), new Object[]{1L});
+        Object byString = generator.generate(method("byString", String.class), new Object[]{"1"});
+        Object byObject = generator.generate(method("byObject", Object.class), new Object[]{1});
+
+        assertThat(byLong).isEqualTo(byString).isEqualTo(byObject);
+    }
+
+    @Test
+    void multiArgumentKeysNormalizeEachArgument() throws Exception {
+        Object longAndScale2 = generator.generate(method("byLongAndAmount", Long.class, BigDecimal.class),
+                new Object[]{1L, new BigDecimal("10.50")});
+        Object integerAndScale1 = generator.generate(method("byIntegerAndAmount", Integer.class, BigDecimal.class),
+                new Object[]{1, new BigDecimal("10.5")});
+
+        assertThat(longAndScale2).isEqualTo(integerAndScale1);
+        assertThat(longAndScale2.hashCode()).isEqualTo(integerAndScale1.hashCode());
+    }
+
+    @Test
+    void multiArgumentKeysUseEntityIdLikeSingleArgument() throws Exception {
+        Method method = method("byEntityAndStatus", Entity.class, String.class);
+
+        Object first = generator.generate(method, new Object[]{new Entity(7L, "a"), "ACTIVE"});
+        Object sameId = generator.generate(method, new Object[]{new Entity(7L, "b"), "ACTIVE"});
+        Object otherId = generator.generate(method, new Object[]{new Entity(8L, "a"), "ACTIVE"});
+
+        assertThat(first).isEqualTo(sameId).isNotEqualTo(otherId);
+    }
+
+    @Test
+    void keyParamMatchesSingleArgumentReadKey() throws Exception {
+        Object readKey = generator.generate(method("byString", String.class), new Object[]{"42"});
+        Object writeKey = generator.generate(method("update", Long.class, BigDecimal.class, boolean.class), 0,
+                new Object[]{42L, BigDecimal.TEN, true});
+
+        assertThat(writeKey).isEqualTo(readKey);
+    }
+
+    @Test
+    void differentArgumentsDoNotCollide() throws Exception {
+        Method method = method("byLongAndAmount", Long.class, BigDecimal.class);
+
+        Object first = generator.generate(method, new Object[]{1L, new BigDecimal("2")});
+        Object swapped = generator.generate(method, new Object[]{2L, new BigDecimal("1")});
+
+        assertThat(first).isNotEqualTo(swapped);
+    }
+
+    private static Method method(String name, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return Methods.class.getDeclaredMethod(name, parameterTypes);
+    }
+
+    // Сущность без equals: ключом должно быть значение поля id
+    static class Entity {
+        private final Long id;
+        private final String name;
+
+        Entity(Long id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private static class Methods {
+        void byLong(Long id) {}
+        void byString(String id) {}
+        void byObject(Object id) {}
+        void byLongAndAmount(Long id, BigDecimal amount) {}
+        void byIntegerAndAmount(Integer id, BigDecimal amount) {}
+        void byEntityAndStatus(Entity entity, String status) {}
+        void update(Long id, BigDecimal amount, boolean credit) {}
+    }
+}
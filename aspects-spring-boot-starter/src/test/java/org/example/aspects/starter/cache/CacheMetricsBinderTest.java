@@ -0,0 +1,27 @@
+package org.example.aspects.starter.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class CacheMetricsBinderTest {
+
+    @Test
+    void loadsArePublishedForSuccessAndFailure() {
+        CacheStatistics statistics = new CacheStatistics();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new CacheMetricsBinder(statistics, mock(CacheBackend.class)).bindTo(registry);
+
+        CacheStatistics.Counters counters = statistics.forCache("items");
+        counters.recordLoadSuccess(1_000);
+        counters.recordLoadSuccess(1_000);
+        counters.recordLoadFailure(1_000);
+
+        assertThat(registry.get("cache.loads").tag("cache", "items").tag("result", "success")
+                .functionCounter().count()).isEqualTo(2);
+        assertThat(registry.get("cache.loads").tag("cache", "items").tag("result", "failure")
+                .functionCounter().count()).isEqualTo(1);
+    }
+}
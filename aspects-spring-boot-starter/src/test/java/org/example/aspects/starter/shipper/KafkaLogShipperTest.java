@@ -0,0 +1,39 @@
+package org.example.aspects.starter.shipper;
+
+import org.example.aspects.starter.config.AspectsProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class KafkaLogShipperTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dropOldestNotifiesEvictedMessage() {
+        AspectsProperties.Shipper properties = new AspectsProperties.Shipper();
+        properties.setQueueCapacity(1);
+        properties.setOverflowPolicy(AspectsProperties.Shipper.OverflowPolicy.DROP_OLDEST);
+        // Фоновый поток не запущен: очередь не разгружается
+        KafkaLogShipper shipper = new KafkaLogShipper(mock(KafkaTemplate.class), properties);
+
+        List<Throwable> oldestFailures = new ArrayList<>();
+        List<Throwable> newestFailures = new ArrayList<>();
+        Consumer<Throwable> oldest = oldestFailures::add;
+        Consumer<Throwable> newest = newestFailures::add;
+
+        assertThat(shipper.submit(MessageBuilder.withPayload("oldest").build(), oldest)).isTrue();
+        assertThat(shipper.submit(MessageBuilder.withPayload("newest").build(), newest)).isTrue();
+
+        assertThat(oldestFailures).singleElement()
+                .satisfies(failure -> assertThat(failure).hasMessageContaining("overflow"));
+        assertThat(newestFailures).isEmpty();
+        assertThat(shipper.getStats().dropped()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.clientModels.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.example.clientModels.enums.CardRequestStatus;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "card_request")
+@Data
+public class CardRequest {
+
+    @Id
+    @Column(name = "request_id", nullable = false, length = 36)
+    private String requestId;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private CardRequestStatus status;
+
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Column(name = "card_id")
+    private String cardId;
+
+    @Column(name = "message", columnDefinition = "TEXT")
+    private String message;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,5 @@
+package org.example.clientModels.enums;
+
+public enum CardRequestStatus {
+    PENDING, CREATED, REJECTED, FAILED
+}
@@ -0,0 +1,43 @@
+package org.example.consumer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.clientModels.enums.CardRequestStatus;
+import org.example.dto.CardCreationResultDto;
+import org.example.service.CardRequestStatusStore;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CardCreationResultConsumer {
+
+    private final CardRequestStatusStore statusStore;
+
+    // Своя consumer group на экземпляр: статус пишется в общую таблицу первым получившим результат,
+    // но long-poll ожидающие живут на каждом экземпляре, поэтому результаты видят все.
+    // Id группы постоянный (имя хоста/пода), чтобы после рестарта продолжить
+    // с зафиксированного оффсета и не оставлять брошенных групп
+    @KafkaListener(
+            topics = "${kafka.topics.client-card-results:client_card_results}",
+            groupId = "client-card-results-${app.instance-id}",
+            properties = "auto.offset.reset=latest"
+    )
+    public void consumeCardCreationResult(@Payload CardCreationResultDto result,
+                                          Acknowledgment acknowledgment) {
+        try {
+            if (result.getRequestId() == null || result.getStatus() == null) {
+                log.error("Invalid card creation result: missing requestId or status");
+            } else {
+                statusStore.complete(result.getRequestId(), CardRequestStatus.valueOf(result.getStatus()),
+                        result.getAccountId(), result.getCardId(), result.getMessage());
+            }
+        } catch (Exception e) {
+            log.error("Error processing card creation result for request ID: {}", result.getRequestId(), e);
+        }
+        acknowledgment.acknowledge();
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.consumer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.TransactionProcessingResultDto;
+import org.example.service.TransactionReplyCorrelator;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransactionResultConsumer {
+
+    private final TransactionReplyCorrelator replyCorrelator;
+
+    // Своя consumer group на экземпляр: ожидающие запросы хранятся локально,
+    // каждый экземпляр должен увидеть все результаты; история до старта не нужна.
+    // Id группы постоянный (app.instance-id), чтобы рестарт не оставлял брошенных групп
+    @KafkaListener(
+            topics = "${kafka.topics.client-transaction-results:client_transaction_results}",
+            groupId = "client-transaction-results-${app.instance-id}",
+            properties = "auto.offset.reset=latest"
+    )
+    public void consumeTransactionResult(@Payload TransactionProcessingResultDto result,
+                                         Acknowledgment acknowledgment) {
+        try {
+            if (result.getMessageId() == null) {
+                log.error("Invalid transaction result: missing messageId");
+            } else {
+                replyCorrelator.complete(result);
+            }
+        } catch (Exception e) {
+            log.error("Error processing transaction result for message ID: {}", result.getMessageId(), e);
+        }
+        acknowledgment.acknowledge();
+    }
+}
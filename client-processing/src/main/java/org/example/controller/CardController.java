@@ -2,28 +2,60 @@ package org.example.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.example.dto.CardCreateDto;
+import org.example.dto.CardCreationStatusDto;
 import org.example.service.CardCreateService;
+import org.example.service.CardRequestStatusStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.TransactionException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.net.URI;
 
 @RestController
 @RequestMapping("/api/cards")
 @RequiredArgsConstructor
 public class CardController {
     private final CardCreateService cardCreateService;
+    private final CardRequestStatusStore statusStore;
+
+    @Value("${app.card-requests.max-wait-ms:30000}")
+    private long maxWaitMs;
 
+    /**
+     * 202 Accepted сразу после постановки в очередь; статус - по ссылке из Location.
+     * 503, если запрос не удалось сохранить
+     */
     @PostMapping("/createcard")
-    public ResponseEntity<CardCreateDto> createClientProduct(@RequestBody CardCreateDto cardCreateDto) {
+    public ResponseEntity<CardCreationStatusDto> createClientProduct(@RequestBody CardCreateDto cardCreateDto) {
         try {
-            CardCreateDto createdCard = cardCreateService.createCard(cardCreateDto);
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdCard);
+            CardCreationStatusDto status = cardCreateService.submitCard(cardCreateDto);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/cards/requests/" + status.getRequestId()))
+                    .body(status);
+        } catch (DataAccessException | TransactionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Статус запроса; с waitMs > 0 - long-poll до получения результата или истечения ожидания
+     */
+    @GetMapping("/requests/{requestId}")
+    public DeferredResult<ResponseEntity<CardCreationStatusDto>> getRequestStatus(
+            @PathVariable String requestId,
+            @RequestParam(defaultValue = "0") long waitMs) {
+        return statusStore.await(requestId, Math.min(waitMs, maxWaitMs));
+    }
 }
@@ -3,12 +3,19 @@ package org.example.controller;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.aspects.starter.annotation.HttpIncomeRequestLog;
+import org.example.dto.ClientInfoBatchRequest;
 import org.example.dto.ClientInfoDto;
 import org.example.clientModels.entity.Client;
 import org.example.service.ClientService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
 @Slf4j
 @RestController
 @RequestMapping("/api/getclients")
@@ -17,6 +24,9 @@ public class ClientController {
 
     private final ClientService clientService;
 
+    @Value("${app.client-info.max-batch-size:500}")
+    private int maxBatchSize;
+
     @HttpIncomeRequestLog
     @GetMapping("/{id}")
     public ResponseEntity<ClientInfoDto> getClientById(@PathVariable String id) {
@@ -29,4 +39,28 @@ public class ClientController {
             return ResponseEntity.notFound().build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Данные нескольких клиентов за один запрос: ответ - map clientId -> данные клиента,
+     * ненайденные clientId в ответ не попадают
+     */
+    @HttpIncomeRequestLog
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, ClientInfoDto>> getClientsByIds(@RequestBody ClientInfoBatchRequest request) {
+        if (request.getClientIds() == null || request.getClientIds().isEmpty()) {
+            return ResponseEntity.ok(Map.of());
+        }
+
+        Set<String> ids = new LinkedHashSet<>(request.getClientIds());
+        if (ids.size() > maxBatchSize) {
+            log.warn("Client batch request rejected: {} ids, limit {}", ids.size(), maxBatchSize);
+            return ResponseEntity.badRequest().build();
+        }
+
+        Map<String, ClientInfoDto> clientInfos = new LinkedHashMap<>(ids.size());
+        clientService.getClientsByIds(ids)
+                .forEach((clientId, client) -> clientInfos.put(clientId, new ClientInfoDto(client)));
+
+        return ResponseEntity.ok(clientInfos);
+    }
+}
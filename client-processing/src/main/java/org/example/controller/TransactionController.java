@@ -3,8 +3,11 @@ package org.example.controller;
 import lombok.RequiredArgsConstructor;
 import org.example.dto.TransactionMessageDto;
 import org.example.service.TransactionProducerService;
+import org.example.service.TransactionReplyCorrelator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -15,6 +18,13 @@ import java.util.UUID;
 public class TransactionController {
 
     private final TransactionProducerService transactionProducerService;
+    private final TransactionReplyCorrelator replyCorrelator;
+
+    @Value("${app.transaction-replies.default-timeout-ms:5000}")
+    private long defaultTimeoutMs;
+
+    @Value("${app.transaction-replies.max-timeout-ms:30000}")
+    private long maxTimeoutMs;
 
     @PostMapping("/send")
     public ResponseEntity<String> sendTransaction(@RequestBody TransactionMessageDto transactionMessage) {
@@ -26,4 +36,35 @@ public class TransactionController {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Отправка с ожиданием результата обработки из account-processing без блокировки потока:
+     * 200 с результатом, 202 - если результат не пришел за timeoutMs
+     */
+    @PostMapping("/send-and-wait")
+    public DeferredResult<ResponseEntity<Object>> sendTransactionAndWait(
+            @RequestBody TransactionMessageDto transactionMessage,
+            @RequestParam(required = false) Long timeoutMs) {
+        if (transactionMessage.getMessageId() == null) {
+            transactionMessage.setMessageId(UUID.randomUUID());
+        }
+        long timeout = Math.min(timeoutMs != null ? timeoutMs : defaultTimeoutMs, maxTimeoutMs);
+
+        DeferredResult<ResponseEntity<Object>> reply =
+                replyCorrelator.register(transactionMessage.getMessageId(), timeout);
+        if (reply.hasResult()) {
+            return reply;
+        }
+
+        try {
+            transactionProducerService.sendTransaction(transactionMessage)
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            replyCorrelator.fail(transactionMessage.getMessageId(), ex.getMessage());
+                        }
+                    });
+        } catch (Exception e) {
+            replyCorrelator.fail(transactionMessage.getMessageId(), e.getMessage());
+        }
+        return reply;
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.dto;
+
+import lombok.Data;
+
+@Data
+public class CardCreationResultDto {
+    private String requestId;
+    private Long accountId;
+    private String cardId;
+    private String status;
+    private String message;
+}
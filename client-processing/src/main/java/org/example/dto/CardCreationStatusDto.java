@@ -0,0 +1,20 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.example.clientModels.enums.CardRequestStatus;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CardCreationStatusDto {
+    private String requestId;
+    private CardRequestStatus status;
+    private Long accountId;
+    private String cardId;
+    private String message;
+    private Instant updatedAt;
+}
@@ -0,0 +1,16 @@
+package org.example.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Результат обработки транзакции в account-processing (топик client_transaction_results)
+@Data
+public class TransactionProcessingResultDto {
+    private UUID messageId;
+    private String status;
+    private String message;
+    private BigDecimal currentBalance;
+    private Boolean accountBlocked;
+}
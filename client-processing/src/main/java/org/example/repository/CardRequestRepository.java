@@ -0,0 +1,32 @@
+package org.example.repository;
+
+import org.example.clientModels.entity.CardRequest;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface CardRequestRepository extends JpaRepository<CardRequest, String> {
+
+    // Итоговый статус записывается только поверх PENDING (или для неизвестного запроса):
+    // 1 - статус записан, 0 - запрос уже завершен (результат получен другим экземпляром или повторно)
+    @Modifying
+    @Query(value = "INSERT INTO card_request (request_id, status, account_id, card_id, message, updated_at) " +
+            "VALUES (:requestId, :status, :accountId, :cardId, :message, now()) " +
+            "ON CONFLICT (request_id) DO UPDATE SET status = EXCLUDED.status, message = EXCLUDED.message, " +
+            "updated_at = EXCLUDED.updated_at WHERE card_request.status = 'PENDING'",
+            nativeQuery = true)
+    int completePending(@Param("requestId") String requestId,
+                        @Param("status") String status,
+                        @Param("accountId") Long accountId,
+                        @Param("cardId") String cardId,
+                        @Param("message") String message);
+
+    @Modifying
+    @Query("DELETE FROM CardRequest r WHERE r.updatedAt < :cutoff")
+    int deleteUpdatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
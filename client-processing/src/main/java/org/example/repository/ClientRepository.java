@@ -2,12 +2,18 @@ package org.example.repository;
 import org.example.clientModels.entity.Client;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long> {
     Optional<Client> findByClientId(String clientId);
     boolean existsByClientId(String clientId);
+
+    @Query("SELECT c FROM Client c WHERE c.clientId IN :clientIds")
+    List<Client> findAllByClientIdIn(@Param("clientIds") Collection<String> clientIds);
 }
\ No newline at end of file
@@ -0,0 +1,198 @@
+package org.example.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.clientModels.entity.CardRequest;
+import org.example.clientModels.enums.CardRequestStatus;
+import org.example.dto.CardCreationStatusDto;
+import org.example.repository.CardRequestRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Статусы асинхронных запросов на создание карты.
+ * Источник истины - таблица card_request, общая для всех экземпляров: строка PENDING пишется
+ * в одной транзакции с outbox-событием, поэтому опрос статуса может прийти на любой экземпляр.
+ * Итоговый статус записывается только поверх PENDING и дальше не меняется; завершенные статусы
+ * кэшируются локально, чтобы повторные опросы не шли в БД.
+ * Long-poll: ожидающие запросы (DeferredResult) живут на своем экземпляре, поэтому результаты
+ * читает каждый экземпляр (см. CardCreationResultConsumer) и будит своих ожидающих.
+ */
+@Slf4j
+@Component
+public class CardRequestStatusStore {
+
+    private final CardRequestRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, CardCreationStatusDto> completed;
+    private final long statusTtlMinutes;
+    private final Map<String, Set<DeferredResult<ResponseEntity<CardCreationStatusDto>>>> waiters =
+            new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService cleaner;
+
+    public CardRequestStatusStore(CardRequestRepository repository,
+                                  TransactionTemplate transactionTemplate,
+                                  @Value("${app.card-requests.max-size:100000}") long maxSize,
+                                  @Value("${app.card-requests.status-ttl-minutes:30}") long statusTtlMinutes) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.statusTtlMinutes = statusTtlMinutes;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(statusTtlMinutes))
+                .build();
+    }
+
+    /**
+     * Сохраняет PENDING в транзакции вызывающего - вместе с outbox-событием запроса
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public CardCreationStatusDto registerPending(String requestId, Long accountId, String cardId) {
+        CardRequest request = new CardRequest();
+        request.setRequestId(requestId);
+        request.setStatus(CardRequestStatus.PENDING);
+        request.setAccountId(accountId);
+        request.setCardId(cardId);
+        request.setMessage("Card creation accepted");
+        request.setUpdatedAt(LocalDateTime.now());
+        return toDto(repository.save(request));
+    }
+
+    public CardCreationStatusDto get(String requestId) {
+        CardCreationStatusDto done = completed.getIfPresent(requestId);
+        if (done != null) {
+            return done;
+        }
+        return repository.findById(requestId)
+                .map(this::toDto)
+                .map(this::rememberIfCompleted)
+                .orElse(null);
+    }
+
+    /**
+     * Фиксирует итоговый статус и будит ожидающих на этом экземпляре.
+     * Результат приходит на каждый экземпляр: записывает его первый, остальные (и redelivery)
+     * не меняют уже завершенный запрос. Результат для неизвестного запроса тоже сохраняется.
+     */
+    public CardCreationStatusDto complete(String requestId, CardRequestStatus status,
+                                          Long accountId, String cardId, String message) {
+        CardCreationStatusDto updated = transactionTemplate.execute(tx -> {
+            repository.completePending(requestId, status.name(), accountId, cardId, message);
+            return repository.findById(requestId).map(this::toDto).orElseThrow();
+        });
+        rememberIfCompleted(updated);
+
+        Set<DeferredResult<ResponseEntity<CardCreationStatusDto>>> pending = waiters.remove(requestId);
+        if (pending != null) {
+            pending.forEach(waiter -> waiter.setResult(ResponseEntity.ok(updated)));
+        }
+        log.debug("Card request {} completed with status {}", requestId, updated.getStatus());
+        return updated;
+    }
+
+    /**
+     * Long-poll: результат сразу, если запрос уже завершен, иначе - по приходу результата
+     * или текущий статус PENDING по истечении ожидания
+     */
+    public DeferredResult<ResponseEntity<CardCreationStatusDto>> await(String requestId, long waitMs) {
+        CardCreationStatusDto current = get(requestId);
+        if (current == null) {
+            DeferredResult<ResponseEntity<CardCreationStatusDto>> notFound = new DeferredResult<>();
+            notFound.setResult(ResponseEntity.notFound().build());
+            return notFound;
+        }
+
+        DeferredResult<ResponseEntity<CardCreationStatusDto>> result = new DeferredResult<>(waitMs);
+        if (current.getStatus() != CardRequestStatus.PENDING || waitMs <= 0) {
+            result.setResult(ResponseEntity.ok(current));
+            return result;
+        }
+
+        waiters.compute(requestId, (id, requestWaiters) -> {
+            Set<DeferredResult<ResponseEntity<CardCreationStatusDto>>> set =
+                    requestWaiters != null ? requestWaiters : ConcurrentHashMap.newKeySet();
+            set.add(result);
+            return set;
+        });
+
+        result.onTimeout(() -> result.setResult(ResponseEntity.ok(currentOrPending(requestId, current))));
+        // Пустые наборы ожидающих не оставляем в map
+        result.onCompletion(() -> waiters.computeIfPresent(requestId, (id, requestWaiters) -> {
+            requestWaiters.remove(result);
+            return requestWaiters.isEmpty() ? null : requestWaiters;
+        }));
+
+        // Результат мог прийти между проверкой статуса и регистрацией ожидающего
+        CardCreationStatusDto latest = completed.getIfPresent(requestId);
+        if (latest != null) {
+            result.setResult(ResponseEntity.ok(latest));
+        }
+        return result;
+    }
+
+    @PostConstruct
+    public void startCleanup() {
+        cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "card-requests-cleaner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        cleaner.scheduleWithFixedDelay(this::purgeExpired, 1, 5, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stopCleanup() {
+        if (cleaner != null) {
+            cleaner.shutdownNow();
+        }
+    }
+
+    void purgeExpired() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusMinutes(statusTtlMinutes);
+            Integer removed = transactionTemplate.execute(tx -> repository.deleteUpdatedBefore(cutoff));
+            if (removed != null && removed > 0) {
+                log.info("Removed {} card requests older than {}", removed, cutoff);
+            }
+        } catch (Exception e) {
+            log.warn("Card requests cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private CardCreationStatusDto currentOrPending(String requestId, CardCreationStatusDto fallback) {
+        CardCreationStatusDto latest = get(requestId);
+        return latest != null ? latest : fallback;
+    }
+
+    private CardCreationStatusDto rememberIfCompleted(CardCreationStatusDto status) {
+        if (status.getStatus() != CardRequestStatus.PENDING) {
+            completed.put(status.getRequestId(), status);
+        }
+        return status;
+    }
+
+    private CardCreationStatusDto toDto(CardRequest request) {
+        return new CardCreationStatusDto(request.getRequestId(), request.getStatus(), request.getAccountId(),
+                request.getCardId(), request.getMessage(),
+                request.getUpdatedAt().atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
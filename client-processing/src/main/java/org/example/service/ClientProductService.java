@@ -9,22 +9,18 @@ import org.example.dto.ClientProductMessage;
 import org.example.repository.ClientProductRepository;
 import org.example.repository.ClientRepository;
 import org.example.repository.ProductRepository;
-import org.springframework.kafka.core.KafkaTemplate;
-import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 
 @Service
 @RequiredArgsConstructor
 public class ClientProductService {
 
     private final ClientProductRepository clientProductRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate; // Правильный тип
+    private final OutboxService outboxService;
     private final ClientRepository clientRepository;
     private final ProductRepository productRepository;
 
@@ -44,6 +40,7 @@ public class ClientProductService {
         return clientProductRepository.findByProductId(productId);
     }
 
+    @Transactional
     public ClientProduct createClientProduct(ClientProduct clientProduct) {
         if (clientProduct.getClient() == null || clientProduct.getClient().getId() == null) {
             throw new RuntimeException("Client is required");
@@ -63,79 +60,37 @@ public class ClientProductService {
         clientProduct.setClient(client);
         clientProduct.setProduct(product);
 
-        System.out.println("Starting Kafka transaction...");
+        // Сущность и сообщение для Kafka сохраняются одной транзакцией;
+        // публикацию выполняет OutboxRelay после commit
+        ClientProduct savedClientProduct = clientProductRepository.save(clientProduct);
+        outboxService.enqueue(resolveTopic(product.getKey()), "pending", toMessage(savedClientProduct));
 
-        // 1. Сначала отправляем в Kafka и ждем подтверждения
-        try {
-            CompletableFuture<SendResult<String, Object>> future = sendToKafka(clientProduct);
-
-            // Ждем подтверждения от Kafka (таймаут 10 секунд)
-            SendResult<String, Object> result = future.get(10, TimeUnit.SECONDS);
-
-            System.out.println("Kafka confirmation received: " + result.getRecordMetadata());
-
-            // 2. Только после подтверждения от Kafka сохраняем в базу
-            ClientProduct savedClientProduct = clientProductRepository.save(clientProduct);
-            System.out.println("Entity saved to database: " + savedClientProduct.getId());
-
-            return savedClientProduct;
+        return savedClientProduct;
+    }
 
-        } catch (TimeoutException e) {
-            System.err.println("Kafka timeout - message not delivered within 10 seconds");
-            throw new RuntimeException("Kafka timeout - please try again later");
-        } catch (Exception e) {
-            System.err.println("Kafka error: " + e.getMessage());
-            throw new RuntimeException("Message delivery failed: " + e.getMessage());
+    private String resolveTopic(ProductKey productKey) {
+        if (productKey == ProductKey.DC || productKey == ProductKey.CC ||
+                productKey == ProductKey.NS || productKey == ProductKey.PENS) {
+            return "client_products";
         }
+        return "client_credit_products";
     }
 
-    private CompletableFuture<SendResult<String, Object>> sendToKafka(ClientProduct clientProduct) {
-        try {
-            Product product = clientProduct.getProduct();
-            ProductKey productKey = product.getKey();
-
-            String topic;
-            if (productKey == ProductKey.DC || productKey == ProductKey.CC ||
-                    productKey == ProductKey.NS || productKey == ProductKey.PENS) {
-                topic = "client_products";
-            } else {
-                topic = "client_credit_products";
-            }
-
-            System.out.println("Selected topic: " + topic);
-
-            // Создаем DTO объект для отправки
-            ClientProductMessage message = new ClientProductMessage();
-            message.setClientProductId("PENDING");
-            message.setClientId(clientProduct.getClient().getClientId());
-            message.setProductId(clientProduct.getProduct().getProductId());
-            message.setProductKey(productKey.toString());
-            message.setOpenDate(clientProduct.getOpenDate().toString());
-            message.setStatus(clientProduct.getStatus().toString());
-
-            if (clientProduct.getCloseDate() != null) {
-                message.setCloseDate(clientProduct.getCloseDate().toString());
-            }
-
-            System.out.println("Sending message to Kafka topic: " + topic);
-            CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(topic, "pending", message);
-
-            future.whenComplete((result, exception) -> {
-                if (exception != null) {
-                    System.err.println("Kafka send failed: " + exception.getMessage());
-                } else {
-                    System.out.println("Kafka send successful: " + result.getRecordMetadata());
-                }
-            });
-
-            return future;
-
-        } catch (Exception e) {
-            System.err.println("Error preparing Kafka message: " + e.getMessage());
-            CompletableFuture<SendResult<String, Object>> failedFuture = new CompletableFuture<>();
-            failedFuture.completeExceptionally(e);
-            return failedFuture;
+    private ClientProductMessage toMessage(ClientProduct clientProduct) {
+        // Создаем DTO объект для отправки
+        ClientProductMessage message = new ClientProductMessage();
+        message.setClientProductId("PENDING");
+        message.setClientId(clientProduct.getClient().getClientId());
+        message.setProductId(clientProduct.getProduct().getProductId());
+        message.setProductKey(clientProduct.getProduct().getKey().toString());
+        message.setOpenDate(clientProduct.getOpenDate().toString());
+        message.setStatus(clientProduct.getStatus().toString());
+
+        if (clientProduct.getCloseDate() != null) {
+            message.setCloseDate(clientProduct.getCloseDate().toString());
         }
+
+        return message;
     }
 
     public ClientProduct updateClientProduct(Long id, ClientProduct clientProductDetails) {
@@ -1,7 +1,9 @@
 package org.example.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.example.clientModels.enums.DocumentType;
+import org.example.dto.ClientChangeMessage;
 import org.example.dto.ClientRegistrationRequest;
 import org.example.dto.ClientRegistrationResponse;
 import org.example.clientModels.entity.Client;
@@ -9,16 +11,29 @@ import org.example.clientModels.entity.User;
 import org.example.repository.ClientRepository;
 import org.example.repository.UserRepository;
 import org.example.repository.BlacklistRegistryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Instant;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ClientRegistrationService {
 
+    public static final String CHANGE_TYPE_REGISTERED = "REGISTERED";
+
     private final UserRepository userRepository;
     private final ClientRepository clientRepository;
     private final BlacklistRegistryRepository blacklistRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Value("${kafka.topics.client-changes:client_changes}")
+    private String clientChangesTopic;
 
     @Transactional
     public ClientRegistrationResponse registerClient(ClientRegistrationRequest request) {
@@ -55,7 +70,10 @@ public class ClientRegistrationService {
         client.setDocumentSuffix(request.getDocumentSuffix());
         Client savedClient = clientRepository.save(client);
 
-        // 5. Формируем ответ
+        // 5. Оповещаем потребителей (кэши данных клиента) после фиксации транзакции
+        publishClientChange(savedClient.getClientId(), CHANGE_TYPE_REGISTERED);
+
+        // 6. Формируем ответ
         ClientRegistrationResponse response = new ClientRegistrationResponse();
         response.setMessage("Client registered successfully");
         response.setClientId(savedClient.getClientId());
@@ -78,6 +96,34 @@ public class ClientRegistrationService {
         }
     }
 
+    /**
+     * Публикует событие изменения клиента в client_changes.
+     * Отправка выполняется только после commit, чтобы потребитель не перечитал данные,
+     * которые еще не видны в БД; ключ сообщения - clientId.
+     */
+    private void publishClientChange(String clientId, String changeType) {
+        ClientChangeMessage message = new ClientChangeMessage(clientId, changeType, Instant.now().toString());
+
+        Runnable send = () -> kafkaTemplate.send(clientChangesTopic, clientId, message)
+                .whenComplete((result, exception) -> {
+                    if (exception != null) {
+                        log.warn("Failed to publish client change for client ID {}: {}",
+                                clientId, exception.getMessage());
+                    }
+                });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send.run();
+                }
+            });
+        } else {
+            send.run();
+        }
+    }
+
     private String generateUniqueClientId() {
         return "77" + System.currentTimeMillis() % 100000000;
     }
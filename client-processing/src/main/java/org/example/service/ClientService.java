@@ -6,6 +6,10 @@ import org.example.clientModels.entity.Client;
 import org.example.repository.ClientRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -25,4 +29,21 @@ public class ClientService {
         log.info("Client found in database: {} {}", client.getLastName(), client.getFirstName());
         return client;
     }
-}
\ No newline at end of file
+
+    /**
+     * Клиенты по набору clientId одним запросом (IN). Ненайденные clientId в результат не попадают.
+     */
+    public Map<String, Client> getClientsByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Client> clients = new HashMap<>(ids.size());
+        for (Client client : clientRepository.findAllByClientIdIn(ids)) {
+            clients.put(client.getClientId(), client);
+        }
+
+        log.debug("Batch client lookup: requested {}, found {}", ids.size(), clients.size());
+        return clients;
+    }
+}
@@ -0,0 +1,172 @@
+package org.example.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.clientModels.entity.OutboxEvent;
+import org.example.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Публикует outbox_event в Kafka пачками.
+ * Пачка блокируется (FOR UPDATE SKIP LOCKED), отправляется целиком, затем ожидаются подтверждения;
+ * удаляются только подтвержденные строки, остальные будут отправлены повторно (at-least-once).
+ * Пропускная способность видна в метриках outbox.relay.* и outbox.pending.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    // Восстанавливаем только собственные DTO сервиса
+    private static final String PAYLOAD_PACKAGE = "org.example.dto.";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.outbox.poll-interval-ms:200}")
+    private long pollIntervalMs;
+
+    @Value("${app.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.outbox.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    private final Map<String, Class<?>> payloadTypes = new ConcurrentHashMap<>();
+
+    private Counter publishedCounter;
+    private Counter failedCounter;
+    private Timer batchTimer;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        publishedCounter = Counter.builder("outbox.relay.published")
+                .description("Outbox messages published to Kafka")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("outbox.relay.failures")
+                .description("Outbox messages that failed to publish and will be retried")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("outbox.relay.batch")
+                .description("Time to publish one outbox batch, including broker acks")
+                .register(meterRegistry);
+        Gauge.builder("outbox.pending", outboxEventRepository, OutboxEventRepository::count)
+                .description("Outbox messages waiting to be published")
+                .register(meterRegistry);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::relay, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    void relay() {
+        try {
+            // Пока пачки полные - в outbox есть еще строки, продолжаем без паузы
+            int published;
+            do {
+                published = relayBatch();
+            } while (published == batchSize && !Thread.currentThread().isInterrupted());
+        } catch (Exception e) {
+            log.warn("Outbox relay failed: {}", e.getMessage());
+        }
+    }
+
+    private int relayBatch() {
+        Integer published = transactionTemplate.execute(status -> batchTimer.record(this::publishBatch));
+        return published != null ? published : 0;
+    }
+
+    private int publishBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            futures.add(send(event));
+        }
+
+        // Общий таймаут на подтверждения всей пачки
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<Long> publishedIds = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEvent event = batch.get(i);
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                publishedIds.add(event.getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("Outbox event {} to topic {} not published: {}", event.getId(), event.getTopic(), e.getMessage());
+            }
+        }
+
+        if (!publishedIds.isEmpty()) {
+            outboxEventRepository.deleteByIdIn(publishedIds);
+        }
+
+        publishedCounter.increment(publishedIds.size());
+        failedCounter.increment(batch.size() - publishedIds.size());
+        log.debug("Outbox batch published: {}/{}", publishedIds.size(), batch.size());
+
+        return publishedIds.size();
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(OutboxEvent event) {
+        try {
+            Object payload = objectMapper.readValue(event.getPayload(), payloadType(event.getPayloadType()));
+            return kafkaTemplate.send(event.getTopic(), event.getMessageKey(), payload);
+        } catch (Exception e) {
+            log.error("Cannot restore outbox event {} payload of type {}", event.getId(), event.getPayloadType(), e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private Class<?> payloadType(String typeName) {
+        return payloadTypes.computeIfAbsent(typeName, name -> {
+            if (!name.startsWith(PAYLOAD_PACKAGE)) {
+                throw new IllegalArgumentException("Outbox payload type is not allowed: " + name);
+            }
+            try {
+                return Class.forName(name);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Unknown outbox payload type: " + name, e);
+            }
+        });
+    }
+}
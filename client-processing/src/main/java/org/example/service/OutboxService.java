@@ -0,0 +1,43 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.example.clientModels.entity.OutboxEvent;
+import org.example.repository.OutboxEventRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Запись сообщений в outbox. Сообщение попадает в Kafka, только если зафиксирована
+ * транзакция, в которой сохранены бизнес-данные; публикацией занимается {@link OutboxRelay}.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OutboxEvent enqueue(String topic, String key, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setTopic(topic);
+        event.setMessageKey(key);
+        event.setPayloadType(payload.getClass().getName());
+        event.setPayload(toJson(payload));
+        event.setCreatedAt(LocalDateTime.now());
+        return outboxEventRepository.save(event);
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize outbox payload: " + payload.getClass().getName(), e);
+        }
+    }
+}
@@ -22,7 +22,10 @@ public class PaymentProducerService {
 
     public void sendPayment(PaymentMessageDto paymentMessage) {
 
-        String key = paymentMessage.getMessageId().toString();
+        // Ключ - счет: платежи и транзакции одного счета сохраняют порядок внутри партиции
+        String key = paymentMessage.getAccountId() != null
+                ? paymentMessage.getAccountId()
+                : paymentMessage.getMessageId().toString();
         CompletableFuture<SendResult<String, Object>> future =
                 kafkaTemplate.send("client_payments", key, paymentMessage);
         log.info("Payment sent to topic {}: {}", "client_payments", paymentMessage.getMessageId());
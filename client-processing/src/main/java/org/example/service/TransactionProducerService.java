@@ -20,8 +20,11 @@ public class TransactionProducerService {
     private final KafkaTemplate<String, Object> kafkaTemplate;
 
 
-    public void sendTransaction(TransactionMessageDto transactionMessage) {
-        String key = transactionMessage.getMessageId().toString();
+    public CompletableFuture<SendResult<String, Object>> sendTransaction(TransactionMessageDto transactionMessage) {
+        // Ключ - счет: все сообщения одного счета попадают в одну партицию и обрабатываются по порядку
+        String key = transactionMessage.getAccountId() != null
+                ? transactionMessage.getAccountId()
+                : transactionMessage.getMessageId().toString();
 
         CompletableFuture<SendResult<String, Object>> future =
                 kafkaTemplate.send("client_transactions", key, transactionMessage);
@@ -36,6 +39,8 @@ public class TransactionProducerService {
                         transactionMessage.getMessageId(), ex.getMessage());
             }
         });
+
+        return future;
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.TransactionProcessingResultDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сопоставляет результаты из client_transaction_results с ожидающими HTTP-запросами по messageId.
+ * Поток запроса не блокируется: ответ завершается DeferredResult при получении результата,
+ * по таймауту клиент получает 202 и может узнать итог позже.
+ */
+@Slf4j
+@Component
+public class TransactionReplyCorrelator {
+
+    private final Map<UUID, DeferredResult<ResponseEntity<Object>>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Регистрирует ожидание до отправки сообщения, чтобы быстрый результат не был потерян
+     */
+    public DeferredResult<ResponseEntity<Object>> register(UUID messageId, long timeoutMs) {
+        DeferredResult<ResponseEntity<Object>> result = new DeferredResult<>(timeoutMs);
+        result.onTimeout(() -> result.setResult(ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body("Transaction is still processing: " + messageId)));
+        result.onCompletion(() -> pending.remove(messageId, result));
+
+        if (pending.putIfAbsent(messageId, result) != null) {
+            result.setResult(ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Transaction is already awaited: " + messageId));
+        }
+        return result;
+    }
+
+    public void complete(TransactionProcessingResultDto transactionResult) {
+        DeferredResult<ResponseEntity<Object>> result = pending.remove(transactionResult.getMessageId());
+        if (result == null) {
+            // Запрос другого экземпляра, истекший или отправленный без ожидания
+            return;
+        }
+        result.setResult(ResponseEntity.ok(transactionResult));
+    }
+
+    public void fail(UUID messageId, String reason) {
+        DeferredResult<ResponseEntity<Object>> result = pending.remove(messageId);
+        if (result != null) {
+            result.setResult(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Failed to send transaction: " + reason));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+-- Transactional outbox: события пишутся в той же транзакции, что и бизнес-данные,
+-- и публикуются в Kafka фоновым relay (OutboxRelay); опубликованные строки удаляются
+CREATE TABLE outbox_event (
+    id BIGSERIAL PRIMARY KEY,
+    topic VARCHAR(255) NOT NULL,
+    message_key VARCHAR(255),
+    payload_type VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
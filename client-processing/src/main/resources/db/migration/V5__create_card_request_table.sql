@@ -0,0 +1,12 @@
+-- Статусы асинхронных запросов на создание карты: общие для всех экземпляров client-processing,
+-- чтобы опрос статуса мог прийти на любой экземпляр. Строка пишется в одной транзакции с outbox-событием
+CREATE TABLE card_request (
+    request_id VARCHAR(36) PRIMARY KEY,
+    status VARCHAR(20) NOT NULL,
+    account_id BIGINT,
+    card_id VARCHAR(255),
+    message TEXT,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_card_request_updated_at ON card_request (updated_at);
@@ -53,7 +53,8 @@ public class KafkaConsumerConfig {
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "org.example.dto");
 
         // Добавляем оба типа сообщений
-        props.put(JsonDeserializer.TYPE_MAPPINGS,"ClientProductMessage:org.example.dto.ClientProductMessage");
+        props.put(JsonDeserializer.TYPE_MAPPINGS,"ClientProductMessage:org.example.dto.ClientProductMessage,"
+                + "ClientChangeMessage:org.example.dto.ClientChangeMessage");
 
 
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
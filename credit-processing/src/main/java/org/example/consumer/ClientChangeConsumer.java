@@ -0,0 +1,49 @@
+package org.example.consumer;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.ClientChangeMessage;
+import org.example.service.ClientInfoService;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClientChangeConsumer {
+
+    private final ClientInfoService clientInfoService;
+
+    // client_changes - широковещательная инвалидация локального кэша client-info:
+    // каждый экземпляр читает топик своей consumer group (id постоянный - имя хоста/пода),
+    // иначе сбросил бы запись только один экземпляр из группы.
+    // Изменения до старта не нужны - кэш пустой после рестарта
+    @KafkaListener(
+            topics = "${kafka.topics.client-changes:client_changes}",
+            groupId = "credit-client-changes-${app.instance-id}",
+            properties = "auto.offset.reset=latest"
+    )
+    public void consumeClientChangeMessage(@Payload ClientChangeMessage clientChangeMessage,
+                                           Acknowledgment acknowledgment) {
+        try {
+            if (clientChangeMessage.getClientId() == null || clientChangeMessage.getClientId().isBlank()) {
+                log.error("Invalid client change message: missing clientId");
+                acknowledgment.acknowledge();
+                return;
+            }
+
+            // Сбрасываем закэшированные данные клиента, следующий запрос пойдет в MS-1
+            clientInfoService.evictClientInfo(clientChangeMessage.getClientId().trim());
+
+            acknowledgment.acknowledge();
+            log.debug("Client change processed: {} {}",
+                    clientChangeMessage.getChangeType(), clientChangeMessage.getClientId());
+
+        } catch (Exception e) {
+            log.error("Error processing client change message for client ID: {}",
+                    clientChangeMessage.getClientId(), e);
+        }
+    }
+}
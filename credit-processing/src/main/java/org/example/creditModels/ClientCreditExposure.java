@@ -0,0 +1,31 @@
+package org.example.creditModels;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Кредитная нагрузка клиента, поддерживаемая инкрементально
+ * (см. {@link org.example.service.CreditExposureService})
+ */
+@Entity
+@Table(name = "client_credit_exposure")
+@Data
+public class ClientCreditExposure {
+    @Id
+    @Column(name = "client_id", nullable = false)
+    private String clientId;
+
+    @Column(name = "total_debt", nullable = false)
+    private BigDecimal totalDebt;
+
+    @Column(name = "overdue_count", nullable = false)
+    private Integer overdueCount;
+
+    @Column(name = "product_count", nullable = false)
+    private Integer productCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
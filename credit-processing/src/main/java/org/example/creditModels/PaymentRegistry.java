@@ -9,8 +9,10 @@ import java.time.LocalDate;
 @Table(name = "payment_registry")
 @Data
 public class PaymentRegistry {
+    // Sequence с pooled-оптимизатором: id выделяются блоками, поэтому Hibernate может батчить INSERT
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "payment_registry_seq")
+    @SequenceGenerator(name = "payment_registry_seq", sequenceName = "payment_registry_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne
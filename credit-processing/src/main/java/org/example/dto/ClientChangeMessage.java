@@ -0,0 +1,14 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ClientChangeMessage {
+    private String clientId;
+    private String changeType;
+    private String changedAt;
+}
@@ -0,0 +1,13 @@
+package org.example.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Кредитная нагрузка клиента: непогашенный долг, число просроченных платежей и число продуктов
+ */
+public record CreditSummary(BigDecimal totalDebt, int overdueCount, int activeProductsCount) {
+
+    public boolean hasOverdue() {
+        return overdueCount > 0;
+    }
+}
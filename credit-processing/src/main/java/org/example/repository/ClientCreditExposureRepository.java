@@ -0,0 +1,30 @@
+package org.example.repository;
+
+import org.example.creditModels.ClientCreditExposure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+
+@Repository
+public interface ClientCreditExposureRepository extends JpaRepository<ClientCreditExposure, String> {
+
+    // Атомарное приращение (upsert): параллельные изменения одного клиента не теряются,
+    // строка создается при первом продукте клиента
+    @Modifying
+    @Query(value = "INSERT INTO client_credit_exposure (client_id, total_debt, overdue_count, product_count, updated_at) " +
+            "VALUES (:clientId, :debtDelta, :overdueDelta, :productDelta, now()) " +
+            "ON CONFLICT (client_id) DO UPDATE SET " +
+            "total_debt = client_credit_exposure.total_debt + EXCLUDED.total_debt, " +
+            "overdue_count = client_credit_exposure.overdue_count + EXCLUDED.overdue_count, " +
+            "product_count = client_credit_exposure.product_count + EXCLUDED.product_count, " +
+            "updated_at = now()",
+            nativeQuery = true)
+    int applyDelta(@Param("clientId") String clientId,
+                   @Param("debtDelta") BigDecimal debtDelta,
+                   @Param("overdueDelta") int overdueDelta,
+                   @Param("productDelta") int productDelta);
+}
@@ -3,6 +3,7 @@ package org.example.repository;
 import org.example.creditModels.PaymentRegistry;
 import org.example.creditModels.ProductRegistry;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -18,4 +19,9 @@ public interface PaymentRegistryRepository extends JpaRepository<PaymentRegistry
 
     @Query("SELECT pr FROM PaymentRegistry pr WHERE pr.productRegistry.clientId = :clientId")
     List<PaymentRegistry> findAllPaymentsByClientId(@Param("clientId") String clientId);
-}
\ No newline at end of file
+
+    // Условное обновление: 0, если платеж уже был помечен просроченным
+    @Modifying
+    @Query("UPDATE PaymentRegistry pr SET pr.expired = true WHERE pr.id = :id AND pr.expired = false")
+    int markExpired(@Param("id") Long id);
+}
@@ -2,12 +2,31 @@ package org.example.repository;
 
 import org.example.creditModels.ProductRegistry;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Repository
 public interface ProductRegistryRepository extends JpaRepository<ProductRegistry, Long> {
     // Исправить - искать по строке
     List<ProductRegistry> findByClientId(String clientId);
+
+    // Кредитная нагрузка клиента одним запросом, без гидрации PaymentRegistry/ProductRegistry:
+    // долг по непросроченным платежам, число просроченных платежей и число продуктов
+    // (LEFT JOIN - продукты без платежей тоже учитываются; totalDebt = null, если долга нет)
+    @Query("SELECT SUM(CASE WHEN pay.expired = false THEN pay.debtAmount END) AS totalDebt, " +
+            "COUNT(CASE WHEN pay.expired = true THEN 1 END) AS overdueCount, " +
+            "COUNT(DISTINCT p.id) AS productCount " +
+            "FROM ProductRegistry p LEFT JOIN PaymentRegistry pay ON pay.productRegistry = p " +
+            "WHERE p.clientId = :clientId")
+    CreditSummaryAggregate aggregateCreditSummary(@Param("clientId") String clientId);
+
+    interface CreditSummaryAggregate {
+        BigDecimal getTotalDebt();
+        Long getOverdueCount();
+        Long getProductCount();
+    }
 }
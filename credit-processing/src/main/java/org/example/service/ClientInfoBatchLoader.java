@@ -0,0 +1,128 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.dto.ClientInfo;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Микро-батчинг запросов данных клиента в MS-1.
+ * Запросы, пришедшие в течение окна (несколько миллисекунд), собираются в один
+ * POST /api/getclients/batch; пачка отправляется раньше, если набралось maxBatchSize clientId.
+ * Повторный запрос того же clientId в пределах окна получает тот же future.
+ */
+@Slf4j
+public class ClientInfoBatchLoader implements AutoCloseable {
+
+    private final Function<List<String>, Map<String, ClientInfo>> batchFetcher;
+    private final long windowMs;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+    private Map<String, CompletableFuture<ClientInfo>> pending = new HashMap<>();
+
+    public ClientInfoBatchLoader(Function<List<String>, Map<String, ClientInfo>> batchFetcher,
+                                 long windowMs, int maxBatchSize, int maxInFlight) {
+        this.batchFetcher = batchFetcher;
+        this.windowMs = windowMs;
+        this.maxBatchSize = maxBatchSize;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "client-info-batch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        this.executor = scheduler;
+    }
+
+    public CompletableFuture<ClientInfo> load(String clientId) {
+        Map<String, CompletableFuture<ClientInfo>> fullBatch = null;
+        CompletableFuture<ClientInfo> future;
+
+        synchronized (lock) {
+            future = pending.get(clientId);
+            if (future != null) {
+                return future;
+            }
+
+            future = new CompletableFuture<>();
+            pending.put(clientId, future);
+
+            if (pending.size() == 1) {
+                // Первый запрос в окне запускает таймер отправки
+                executor.schedule(this::flushWindow, windowMs, TimeUnit.MILLISECONDS);
+            }
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = pending;
+                pending = new HashMap<>();
+            }
+        }
+
+        if (fullBatch != null) {
+            Map<String, CompletableFuture<ClientInfo>> batch = fullBatch;
+            executor.execute(() -> dispatch(batch));
+        }
+        return future;
+    }
+
+    /**
+     * Отправляет накопленное по таймеру окна. Если пачка уже ушла по размеру,
+     * таймер может отправить следующую пачку чуть раньше конца ее окна - это безопасно.
+     */
+    private void flushWindow() {
+        Map<String, CompletableFuture<ClientInfo>> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<String, CompletableFuture<ClientInfo>> batch) {
+        List<String> clientIds = new ArrayList<>(batch.keySet());
+        try {
+            Map<String, ClientInfo> clientInfos = batchFetcher.apply(clientIds);
+            log.debug("Client info batch resolved: requested {}, found {}", clientIds.size(), clientInfos.size());
+
+            batch.forEach((clientId, future) -> {
+                ClientInfo clientInfo = clientInfos.get(clientId);
+                if (clientInfo != null) {
+                    future.complete(clientInfo);
+                } else {
+                    future.completeExceptionally(new RuntimeException("Client not found in MS-1: " + clientId));
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Client info batch request failed for {} clients: {}", clientIds.size(), e.getMessage());
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+
+        Map<String, CompletableFuture<ClientInfo>> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        batch.values().forEach(future ->
+                future.completeExceptionally(new IllegalStateException("Client info loader is closed")));
+    }
+}
@@ -0,0 +1,104 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.aspects.starter.annotation.Cached;
+import org.example.aspects.starter.annotation.CachedEvict;
+import org.example.aspects.starter.annotation.HttpOutcomeRequestLog;
+import org.example.dto.ClientInfo;
+import org.example.dto.ClientInfoBatchRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Данные клиента из MS-1 (client-processing).
+ * Ответы кэшируются по clientId: ФИО клиента меняется редко, а запрос нужен на каждое
+ * сообщение client_credit_products. Записи сбрасываются по событию из топика client_changes
+ * и в любом случае живут не дольше TTL. Промахи кэша, пришедшие одновременно,
+ * объединяются {@link ClientInfoBatchLoader} в один batch-запрос.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ClientInfoService {
+
+    private static final ParameterizedTypeReference<Map<String, ClientInfo>> CLIENT_INFO_MAP =
+            new ParameterizedTypeReference<>() {};
+
+    private final ApplicationContext applicationContext;
+    private final RestTemplate restTemplate;
+
+    @Value("${ms1.client-info.url:http://microservices-client-processing-1:8080/api/getclients}")
+    private String ms1ClientInfoUrl;
+
+    @Value("${app.client-info.batch.window-ms:5}")
+    private long batchWindowMs;
+
+    @Value("${app.client-info.batch.max-size:100}")
+    private int batchMaxSize;
+
+    @Value("${app.client-info.batch.max-in-flight:4}")
+    private int batchMaxInFlight;
+
+    @Value("${app.client-info.batch.timeout-ms:5000}")
+    private long batchTimeoutMs;
+
+    private ClientInfoBatchLoader batchLoader;
+
+    @PostConstruct
+    public void init() {
+        String batchUrl = ms1ClientInfoUrl + "/batch";
+        // Вызов через прокси, чтобы сработал @HttpOutcomeRequestLog
+        batchLoader = new ClientInfoBatchLoader(
+                clientIds -> applicationContext.getBean(ClientInfoService.class)
+                        .makeBatchHttpCallWithLogging(batchUrl, HttpMethod.POST,
+                                new HttpEntity<>(new ClientInfoBatchRequest(clientIds))),
+                batchWindowMs, batchMaxSize, batchMaxInFlight);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchLoader.close();
+    }
+
+    @Cached(cacheName = "client-info", ttl = 600000, coalesce = true)
+    public ClientInfo getClientInfo(String clientId) {
+        try {
+            return batchLoader.load(clientId).get(batchTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while loading client info for client_id: " + clientId, e);
+        } catch (Exception e) {
+            throw new RuntimeException("MS-1 service unavailable for client_id: " + clientId, e);
+        }
+    }
+
+    @CachedEvict(cacheNames = "client-info")
+    public void evictClientInfo(String clientId) {
+        log.debug("Client info evicted for client_id: {}", clientId);
+    }
+
+    @HttpOutcomeRequestLog
+    public Map<String, ClientInfo> makeBatchHttpCallWithLogging(String url, HttpMethod method,
+                                                                HttpEntity<ClientInfoBatchRequest> request) {
+        ResponseEntity<Map<String, ClientInfo>> response = restTemplate.exchange(url, method, request, CLIENT_INFO_MAP);
+
+        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
+            return response.getBody();
+        } else {
+            throw new RuntimeException("Failed to get client info batch from MS-1, status: " + response.getStatusCode());
+        }
+    }
+}
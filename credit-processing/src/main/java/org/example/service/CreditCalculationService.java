@@ -1,59 +1,39 @@
 package org.example.service;
 
 import lombok.RequiredArgsConstructor;
-import org.example.creditModels.PaymentRegistry;
-import org.example.creditModels.ProductRegistry;
-import org.example.repository.PaymentRegistryRepository;
+import org.example.creditModels.ClientCreditExposure;
+import org.example.dto.CreditSummary;
+import org.example.repository.ClientCreditExposureRepository;
 import org.example.repository.ProductRegistryRepository;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class CreditCalculationService {
 
-    private final PaymentRegistryRepository paymentRegistryRepository;
+    private final ClientCreditExposureRepository exposureRepository;
     private final ProductRegistryRepository productRegistryRepository;
 
-    public BigDecimal calculateTotalDebt(String clientId) {
-        List<PaymentRegistry> allPayments = paymentRegistryRepository.findAllPaymentsByClientId(clientId);
+    public CreditSummary getClientCreditSummary(String clientId) {
+        // Основной путь - одна строка client_credit_exposure
+        Optional<ClientCreditExposure> exposure = exposureRepository.findById(clientId);
+        if (exposure.isPresent()) {
+            ClientCreditExposure row = exposure.get();
+            return new CreditSummary(row.getTotalDebt(), row.getOverdueCount(), row.getProductCount());
+        }
 
-        // Суммируем debt_amount всех неоплаченных платежей
-        return allPayments.stream()
-                .filter(payment -> !payment.getExpired()) // Только не истекшие (неоплаченные)
-                .map(PaymentRegistry::getDebtAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-
-    public boolean hasOverduePayments(String clientId) {
-        List<PaymentRegistry> overduePayments = paymentRegistryRepository.findOverduePaymentsByClientId(clientId);
-        return !overduePayments.isEmpty();
-    }
-
-    public int getOverduePaymentsCount(String clientId) {
-        List<PaymentRegistry> overduePayments = paymentRegistryRepository.findOverduePaymentsByClientId(clientId);
-        return overduePayments.size();
-    }
-
-    public Map<String, Object> getClientCreditSummary(String clientId) {
-        BigDecimal totalDebt = calculateTotalDebt(clientId);
-        boolean hasOverdue = hasOverduePayments(clientId);
-        int overdueCount = getOverduePaymentsCount(clientId);
-
-        // Получаем активные продукты клиента
-        List<ProductRegistry> activeProducts = productRegistryRepository.findByClientId(clientId);
+        // Строки нет (у клиента нет продуктов, либо данные записаны в обход CreditExposureService) -
+        // считаем агрегатом по payment_registry
+        ProductRegistryRepository.CreditSummaryAggregate aggregate =
+                productRegistryRepository.aggregateCreditSummary(clientId);
 
-        Map<String, Object> summary = new HashMap<>();
-        summary.put("totalDebt", totalDebt);
-        summary.put("hasOverdue", hasOverdue);
-        summary.put("overdueCount", overdueCount);
-        summary.put("activeProductsCount", activeProducts.size());
-        summary.put("activeProducts", activeProducts);
+        BigDecimal totalDebt = aggregate.getTotalDebt() != null ? aggregate.getTotalDebt() : BigDecimal.ZERO;
+        int overdueCount = aggregate.getOverdueCount() != null ? aggregate.getOverdueCount().intValue() : 0;
+        int activeProductsCount = aggregate.getProductCount() != null ? aggregate.getProductCount().intValue() : 0;
 
-        return summary;
+        return new CreditSummary(totalDebt, overdueCount, activeProductsCount);
     }
-}
\ No newline at end of file
+}
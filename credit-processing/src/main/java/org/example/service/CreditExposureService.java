@@ -0,0 +1,64 @@
+package org.example.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.creditModels.PaymentRegistry;
+import org.example.creditModels.ProductRegistry;
+import org.example.repository.ClientCreditExposureRepository;
+import org.example.repository.PaymentRegistryRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Инкрементальное обновление client_credit_exposure.
+ * Каждое изменение, влияющее на кредитную нагрузку, применяется в той же транзакции,
+ * что и запись в payment_registry: долг считается по непросроченным платежам,
+ * просроченный платеж переходит из долга в счетчик просрочек.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CreditExposureService {
+
+    private final ClientCreditExposureRepository exposureRepository;
+    private final PaymentRegistryRepository paymentRegistryRepository;
+
+    /**
+     * Новый продукт с графиком платежей: +1 продукт, + сумма основного долга графика.
+     * Вызывается только внутри транзакции, сохраняющей продукт и график.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordSchedule(ProductRegistry product, List<PaymentRegistry> schedule) {
+        BigDecimal debt = schedule.stream()
+                .filter(payment -> !payment.getExpired())
+                .map(PaymentRegistry::getDebtAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        exposureRepository.applyDelta(product.getClientId(), debt, 0, 1);
+    }
+
+    /**
+     * Помечает платеж просроченным и переносит его долг в просрочку.
+     * Повторная пометка того же платежа нагрузку не меняет.
+     *
+     * @return true, если платеж был помечен этим вызовом
+     */
+    @Transactional
+    public boolean markPaymentExpired(Long paymentId) {
+        PaymentRegistry payment = paymentRegistryRepository.findById(paymentId)
+                .orElseThrow(() -> new IllegalArgumentException("Payment not found: " + paymentId));
+
+        if (paymentRegistryRepository.markExpired(paymentId) == 0) {
+            log.debug("Payment {} is already expired", paymentId);
+            return false;
+        }
+
+        exposureRepository.applyDelta(payment.getProductRegistry().getClientId(),
+                payment.getDebtAmount().negate(), 1, 0);
+        return true;
+    }
+}
@@ -1,37 +1,34 @@
 package org.example.service;
 
 import lombok.RequiredArgsConstructor;
-import org.example.aspects.starter.annotation.HttpOutcomeRequestLog;
 import org.example.creditModels.PaymentRegistry;
 import org.example.creditModels.ProductRegistry;
 import org.example.dto.ClientInfo;
 import org.example.dto.ClientProductMessage;
 import org.example.dto.CreditDecision;
+import org.example.dto.CreditSummary;
 import org.example.repository.PaymentRegistryRepository;
 import org.example.repository.ProductRegistryRepository;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.ApplicationContext;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class ProductRegistryService {
-    private final ApplicationContext applicationContext;
-
-    private final RestTemplate restTemplate;
+    private final ClientInfoService clientInfoService;
     private final ProductRegistryRepository productRegistryRepository;
     private final PaymentRegistryRepository paymentRegistryRepository;
     private final CreditCalculationService creditCalculationService;
-
-    @Value("${ms1.client-info.url:http://microservices-client-processing-1:8080/api/getclients}")
-    private String ms1ClientInfoUrl;
+    private final CreditExposureService creditExposureService;
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${credit.limit.max.total:1000000}")
     private BigDecimal maxTotalLimit;
@@ -44,24 +41,20 @@ public class ProductRegistryService {
 
             String clientIdStr = clientProductMessage.getClientId().trim();
 
-            ClientInfo clientInfo = getClientInfoFromMs1ByClientId(clientIdStr);
+            ClientInfo clientInfo = clientInfoService.getClientInfo(clientIdStr);
             if (clientInfo == null) {
                 return new CreditDecision(false, "Client info not available", BigDecimal.ZERO, false, 0, "", 0);
             }
 
             String clientName = clientInfo.getLastName() + " " + clientInfo.getFirstName() + " " + clientInfo.getMiddleName();
 
-            Map<String, Object> creditSummary = creditCalculationService.getClientCreditSummary(clientIdStr);
-
-            BigDecimal totalDebt = (BigDecimal) creditSummary.get("totalDebt");
-            boolean hasOverdue = (Boolean) creditSummary.get("hasOverdue");
-            int overdueCount = (Integer) creditSummary.get("overdueCount");
-            int activeProductsCount = (Integer) creditSummary.get("activeProductsCount");
+            CreditSummary creditSummary = creditCalculationService.getClientCreditSummary(clientIdStr);
 
             CreditDecision decision = makeCreditDecision(creditSummary, clientProductMessage, clientName);
 
             if (decision.isApproved()) {
-                createNewProduct(clientProductMessage, clientInfo);
+                // Продукт, график платежей и client_credit_exposure фиксируются одной транзакцией
+                transactionTemplate.executeWithoutResult(status -> createNewProduct(clientProductMessage, clientInfo));
             }
 
             return decision;
@@ -71,14 +64,14 @@ public class ProductRegistryService {
         }
     }
 
-    private CreditDecision makeCreditDecision(Map<String, Object> creditSummary,
+    private CreditDecision makeCreditDecision(CreditSummary creditSummary,
                                               ClientProductMessage newProduct,
                                               String clientName) {
 
-        BigDecimal totalDebt = (BigDecimal) creditSummary.get("totalDebt");
-        boolean hasOverdue = (Boolean) creditSummary.get("hasOverdue");
-        int overdueCount = (Integer) creditSummary.get("overdueCount");
-        int activeProductsCount = (Integer) creditSummary.get("activeProductsCount");
+        BigDecimal totalDebt = creditSummary.totalDebt();
+        boolean hasOverdue = creditSummary.hasOverdue();
+        int overdueCount = creditSummary.overdueCount();
+        int activeProductsCount = creditSummary.activeProductsCount();
 
         BigDecimal newProductAmount = getProductAmount(newProduct.getProductKey());
         BigDecimal proposedTotalDebt = totalDebt.add(newProductAmount);
@@ -144,6 +137,7 @@ public class ProductRegistryService {
         );
 
         BigDecimal remainingDebt = productAmount; // Остаток долга
+        List<PaymentRegistry> schedule = new ArrayList<>(product.getMonthCount());
 
         for (int i = 1; i <= product.getMonthCount(); i++) {
             PaymentRegistry payment = new PaymentRegistry();
@@ -170,12 +164,16 @@ public class ProductRegistryService {
             payment.setDebtAmount(principalAmount);
             payment.setExpired(false);
 
-            paymentRegistryRepository.save(payment);
+            schedule.add(payment);
 
             // Обновление остатка долга
             remainingDebt = remainingDebt.subtract(principalAmount)
                     .setScale(2, RoundingMode.HALF_UP);
         }
+
+        // Весь график сохраняется одним batch INSERT
+        paymentRegistryRepository.saveAll(schedule);
+        creditExposureService.recordSchedule(product, schedule);
     }
     private BigDecimal calculateAnnuityPayment(BigDecimal loanAmount, BigDecimal annualRate, int months) {
         // Месячная процентная ставка (i)
@@ -218,28 +216,4 @@ public class ProductRegistryService {
         );
         return interestRates.getOrDefault(productKey, BigDecimal.valueOf(10.0));
     }
-
-    private ClientInfo getClientInfoFromMs1ByClientId(String clientId) {
-        try {
-            String url = ms1ClientInfoUrl + "/" + clientId;
-            // Получаем прокси через ApplicationContext
-            ProductRegistryService proxy = applicationContext.getBean(ProductRegistryService.class);
-            return proxy.makeHttpCallWithLogging(url, clientId);
-        } catch (Exception e) {
-            throw new RuntimeException("MS-1 service unavailable for client_id: " + clientId, e);
-        }
-    }
-    @HttpOutcomeRequestLog
-    public ClientInfo makeHttpCallWithLogging(String url, String clientId) {
-        System.out.println("=== INSIDE makeHttpCallWithLogging ===");
-
-        ResponseEntity<ClientInfo> response = restTemplate.getForEntity(url, ClientInfo.class);
-        System.out.println("=== HTTP RESPONSE STATUS: " + response.getStatusCode() + " ===");
-
-        if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-            return response.getBody();
-        } else {
-            throw new RuntimeException("Failed to get client info from MS-1, status: " + response.getStatusCode());
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,4 @@
+-- Переводим payment_registry на выделение id блоками по 50 (pooled-оптимизатор Hibernate),
+-- чтобы INSERT графика платежей уходили одним JDBC batch
+ALTER SEQUENCE payment_registry_id_seq INCREMENT BY 50;
+SELECT setval('payment_registry_id_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM payment_registry));
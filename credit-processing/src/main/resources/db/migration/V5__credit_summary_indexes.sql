@@ -0,0 +1,4 @@
+-- Индексы для агрегата кредитной нагрузки клиента (ProductRegistryRepository.aggregateCreditSummary):
+-- поиск продуктов по client_id и платежей по продукту
+CREATE INDEX IF NOT EXISTS idx_product_registry_client_id ON product_registry (client_id);
+CREATE INDEX IF NOT EXISTS idx_payment_registry_product_registry_id ON payment_registry (product_registry_id);
@@ -0,0 +1,20 @@
+-- Материализованная кредитная нагрузка клиента: обновляется в той же транзакции,
+-- что и график платежей / пометка платежа просроченным, кредитное решение читает одну строку
+CREATE TABLE client_credit_exposure (
+    client_id VARCHAR(12) PRIMARY KEY,
+    total_debt DECIMAL(15,2) NOT NULL DEFAULT 0,
+    overdue_count INTEGER NOT NULL DEFAULT 0,
+    product_count INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- Заполняем по уже существующим продуктам и платежам
+INSERT INTO client_credit_exposure (client_id, total_debt, overdue_count, product_count, updated_at)
+SELECT p.client_id,
+       COALESCE(SUM(CASE WHEN pay.expired = false THEN pay.debt_amount END), 0),
+       COUNT(CASE WHEN pay.expired = true THEN 1 END),
+       COUNT(DISTINCT p.id),
+       now()
+FROM product_registry p
+LEFT JOIN payment_registry pay ON pay.product_registry_id = p.id
+GROUP BY p.client_id;
@@ -0,0 +1,226 @@
+package org.example.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.example.dto.ClientInfo;
+import org.example.dto.ClientInfoBatchRequest;
+import org.example.service.ClientInfoBatchLoader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочная проверка размера пула RestTemplate.
+ * Нагрузка такая же, как у ClientInfoService: много потоков запрашивают данные клиентов,
+ * ClientInfoBatchLoader собирает их в batch-запросы, одновременно не больше max-in-flight.
+ * Заглушка client-processing отвечает с задержкой и считает одновременные запросы и TCP-соединения.
+ * Сравниваются прежний клиент (new RestTemplate(), HttpURLConnection), пул по умолчанию
+ * (по max-in-flight) и пул 100 / 50 на маршрут: пропускная способность и p50/p99 латентности.
+ */
+class RestTemplatePoolLoadTest {
+
+    private static final ParameterizedTypeReference<Map<String, ClientInfo>> CLIENT_INFO_MAP =
+            new ParameterizedTypeReference<>() {};
+
+    // Значения app.client-info.batch.* из application.yml
+    private static final long WINDOW_MS = 5;
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int MAX_IN_FLIGHT = 4;
+
+    private static final int CALLER_THREADS = 32;
+    private static final int CLIENTS = 20_000;
+    private static final long SERVER_LATENCY_MS = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    private HttpServer server;
+    private String batchUrl;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/getclients/batch", this::handleBatch);
+        server.setExecutor(Executors.newFixedThreadPool(64));
+        server.start();
+        batchUrl = "http://localhost:" + server.getAddress().getPort() + "/api/getclients/batch";
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    @Test
+    void defaultPoolCoversBatchLoaderConcurrency() throws Exception {
+        RestTemplateConfig config = config(8, MAX_IN_FLIGHT);
+
+        LoadResult result = runPooled(config);
+
+        result.print("pooled, " + MAX_IN_FLIGHT + " per route");
+        // Каждый batch-запрос получил соединение без ожидания (иначе - ConnectionRequestTimeout и ошибки)
+        // и ни одно соединение не открывалось сверх max-in-flight
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(MAX_IN_FLIGHT);
+        assertThat(clientPorts).hasSizeLessThanOrEqualTo(MAX_IN_FLIGHT);
+    }
+
+    @Test
+    void largerPoolOpensNoExtraConnections() throws Exception {
+        RestTemplateConfig config = config(100, 50);
+
+        LoadResult result = runPooled(config);
+
+        result.print("pooled, 50 per route");
+        // Пул больше max-in-flight не используется: нагрузку ограничивает ClientInfoBatchLoader
+        assertThat(clientPorts).hasSizeLessThanOrEqualTo(MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Прежний клиент: new RestTemplate() поверх HttpURLConnection, без пула и таймаутов
+     */
+    @Test
+    void bareRestTemplateBaseline() throws Exception {
+        LoadResult result = runLoad(new RestTemplate());
+
+        result.print("bare RestTemplate (HttpURLConnection)");
+    }
+
+    private LoadResult runPooled(RestTemplateConfig config) throws Exception {
+        try (CloseableHttpClient httpClient = config.httpClient()) {
+            return runLoad(config.restTemplate(httpClient));
+        }
+    }
+
+    /**
+     * Нагрузка через ClientInfoBatchLoader; каждый запрос должен завершиться успешно.
+     * Латентность меряется для batch HTTP-запроса (разница клиентов) и для поиска клиента
+     * целиком, как его видит вызывающий (включая окно батчинга и ожидание в очереди)
+     */
+    private LoadResult runLoad(RestTemplate restTemplate) throws Exception {
+        Queue<Long> requestNanos = new ConcurrentLinkedQueue<>();
+        long[] lookupNanos = new long[CLIENTS];
+        ExecutorService callers = Executors.newFixedThreadPool(CALLER_THREADS);
+
+        try (ClientInfoBatchLoader loader = new ClientInfoBatchLoader(clientIds -> {
+            long requestStart = System.nanoTime();
+            Map<String, ClientInfo> clients = restTemplate.exchange(batchUrl, HttpMethod.POST,
+                    new HttpEntity<>(new ClientInfoBatchRequest(clientIds)), CLIENT_INFO_MAP).getBody();
+            requestNanos.add(System.nanoTime() - requestStart);
+            return clients;
+        }, WINDOW_MS, MAX_BATCH_SIZE, MAX_IN_FLIGHT)) {
+
+            long start = System.nanoTime();
+            List<CompletableFuture<ClientInfo>> results = new ArrayList<>(CLIENTS);
+            for (int client = 0; client < CLIENTS; client++) {
+                int index = client;
+                String clientId = String.valueOf(client + 1);
+                results.add(CompletableFuture.supplyAsync(() -> {
+                            long lookupStart = System.nanoTime();
+                            return loader.load(clientId).whenComplete((clientInfo, exception) ->
+                                    lookupNanos[index] = System.nanoTime() - lookupStart);
+                        }, callers)
+                        .thenCompose(future -> future));
+            }
+            CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(2, TimeUnit.MINUTES);
+            double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            assertThat(results).allMatch(result -> !result.isCompletedExceptionally());
+            return new LoadResult(CLIENTS / seconds,
+                    requestNanos.stream().mapToLong(Long::longValue).toArray(), lookupNanos,
+                    clientPorts.size(), maxInFlight.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private RestTemplateConfig config(int maxConnections, int maxConnectionsPerRoute) {
+        RestTemplateConfig config = new RestTemplateConfig();
+        ReflectionTestUtils.setField(config, "maxConnections", maxConnections);
+        ReflectionTestUtils.setField(config, "maxConnectionsPerRoute", maxConnectionsPerRoute);
+        // Остальное - как в application.yml
+        ReflectionTestUtils.setField(config, "connectTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(config, "readTimeoutMs", 3000L);
+        ReflectionTestUtils.setField(config, "poolAcquireTimeoutMs", 500L);
+        ReflectionTestUtils.setField(config, "keepAliveSeconds", 30L);
+        return config;
+    }
+
+    private record LoadResult(double lookupsPerSecond, long[] requestNanos, long[] lookupNanos,
+                              int connections, int peakInFlight) {
+
+        void print(String client) {
+            System.out.printf("client-info load, %s: %.0f lookups/s; batch request p50 %.1f ms, p99 %.1f ms; "
+                            + "lookup p50 %.1f ms, p99 %.1f ms; %d connection(s), peak %d in flight%n",
+                    client, lookupsPerSecond,
+                    percentileMs(requestNanos, 50), percentileMs(requestNanos, 99),
+                    percentileMs(lookupNanos, 50), percentileMs(lookupNanos, 99),
+                    connections, peakInFlight);
+        }
+
+        private static double percentileMs(long[] nanos, int percentile) {
+            long[] sorted = nanos.clone();
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        int current = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(current, Math::max);
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        try {
+            ClientInfoBatchRequest request = objectMapper.readValue(exchange.getRequestBody(), ClientInfoBatchRequest.class);
+            Map<String, ClientInfo> clients = new HashMap<>();
+            for (String clientId : request.getClientIds()) {
+                ClientInfo clientInfo = new ClientInfo();
+                clientInfo.setId(Long.valueOf(clientId));
+                clients.put(clientId, clientInfo);
+            }
+            Thread.sleep(SERVER_LATENCY_MS);
+
+            byte[] body = objectMapper.writeValueAsBytes(clients);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(503, -1);
+        } finally {
+            inFlight.decrementAndGet();
+            exchange.close();
+        }
+    }
+}